@@ -3,6 +3,7 @@ import org.gradle.api.plugins.BasePlugin.BUILD_GROUP
 plugins {
     java
     application
+    id("me.champeau.jmh") version "0.7.1"
 }
 
 group = "com.craftinginterpreters"
@@ -27,7 +28,7 @@ application {
 
 tasks.jar {
     manifest {
-        attributes("Main-Class" to application.mainClass)
+        attributes("Main-Class" to application.mainClass, "Implementation-Version" to project.version)
     }
 }
 
@@ -61,4 +62,12 @@ tasks.named("build") {
 
 tasks.test {
     useJUnitPlatform()
+}
+
+// Benchmarks live in src/jmh/java and are run with `./gradlew jmh`.
+jmh {
+    jmhVersion.set("1.36")
+    // Report allocation rates next to the scores.
+    profilers.add("gc")
+    resultFormat.set("JSON")
 }
\ No newline at end of file
@@ -0,0 +1,76 @@
+package com.craftinginterpreters.lox;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scanning and parsing throughput, both to and from token lists and {@link TokenBuffer}s. The scanned source is
+ * exactly one MiB of ASCII, so the scores of the scan benchmarks read as MiB/s; the parse benchmarks report tokens/s
+ * through the {@code tokens} counter.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FrontEndBenchmark {
+    private static final int SOURCE_SIZE = 1 << 20;
+
+    private String source;
+    private List<Token> tokens;
+    private TokenBuffer tokenBuffer;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class TokenCounter {
+        public long tokens;
+
+        @Setup(Level.Iteration)
+        public void reset () {
+            tokens = 0;
+        }
+    }
+
+    @Setup
+    public void setUp () {
+        source = Programs.mixed(SOURCE_SIZE);
+        tokens = new Scanner(source).scanTokens();
+        tokenBuffer = new Scanner(source).scanTokenBuffer();
+    }
+
+    @Benchmark
+    public List<Token> scan () {
+        return new Scanner(source).scanTokens();
+    }
+
+    @Benchmark
+    public List<Stmt> parse (TokenCounter counter) {
+        counter.tokens += tokens.size();
+        return new Parser(tokens).parse();
+    }
+
+    @Benchmark
+    public TokenBuffer scanToBuffer () {
+        return new Scanner(source).scanTokenBuffer();
+    }
+
+    @Benchmark
+    public List<Stmt> parseFromBuffer (TokenCounter counter) {
+        counter.tokens += tokenBuffer.size();
+        return new Parser(tokenBuffer.cursor()).parse();
+    }
+}
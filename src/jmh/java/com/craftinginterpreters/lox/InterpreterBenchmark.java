@@ -0,0 +1,74 @@
+package com.craftinginterpreters.lox;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Execution of resolved programs, for every engine. Scores are in executed statements per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InterpreterBenchmark {
+    static final int STATEMENTS = 10_000;
+
+    @Param({"tree", "vm", "nodes", "stack", "arena", "jvm"})
+    public String engineName;
+
+    // Programs prepared once, so that engines flattening them into a representation of their own only pay for running.
+    private Runnable expressions;
+    private Runnable emptyBlocks;
+    private Runnable blocks;
+
+    @Setup
+    public void setUp () {
+        Engine engine = engine(engineName);
+        expressions = engine.prepare(Programs.parse(Programs.expressions(STATEMENTS)));
+        emptyBlocks = engine.prepare(Programs.parse(Programs.blocks(STATEMENTS, false)));
+        blocks = engine.prepare(Programs.parse(Programs.blocks(STATEMENTS, true)));
+    }
+
+    static Engine engine (String name) {
+        return switch (name) {
+            case "vm" -> new VirtualMachine();
+            case "nodes" -> new NodeEngine();
+            case "stack" -> new StackInterpreter();
+            case "arena" -> new ArenaEngine();
+            case "jvm" -> new JvmEngine();
+            default -> new Interpreter();
+        };
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STATEMENTS)
+    public void evaluateExpressions () {
+        expressions.run();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STATEMENTS)
+    public void enterEmptyBlocks () {
+        emptyBlocks.run();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STATEMENTS)
+    public void enterBlocksWithLocals () {
+        blocks.run();
+    }
+}
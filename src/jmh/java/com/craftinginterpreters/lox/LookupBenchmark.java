@@ -0,0 +1,51 @@
+package com.craftinginterpreters.lox;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.craftinginterpreters.lox.InterpreterBenchmark.STATEMENTS;
+
+/**
+ * Reads of a variable declared a given number of scopes out, in variable reads per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LookupBenchmark {
+    @Param({"tree", "vm", "nodes", "stack", "arena", "jvm"})
+    public String engineName;
+
+    // Number of scopes between the read and the declaration, "global" for a top-level variable.
+    @Param({"global", "0", "1", "4", "16"})
+    public String depth;
+
+    private Runnable lookups;
+
+    @Setup
+    public void setUp () {
+        Engine engine = InterpreterBenchmark.engine(engineName);
+        int scopes = depth.equals("global") ? -1 : Integer.parseInt(depth);
+        lookups = engine.prepare(Programs.parse(Programs.lookups(scopes, STATEMENTS)));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STATEMENTS)
+    public void lookupVariable () {
+        lookups.run();
+    }
+}
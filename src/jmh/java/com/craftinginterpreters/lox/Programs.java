@@ -0,0 +1,81 @@
+package com.craftinginterpreters.lox;
+
+import java.util.List;
+
+/**
+ * Generated Lox sources shared by the benchmarks. None of them print anything.
+ */
+final class Programs {
+    private Programs () {}
+
+    /**
+     * A program mixing every kind of token, repeated and padded with spaces to exactly {@code size} characters.
+     */
+    static String mixed (int size) {
+        String unit = """
+            var total = 0; // Running total.
+            {
+              var rate = 1.25;
+              total = total + rate * (3 - 1) / 4;
+              var label = "total: " + total;
+              /* Comparisons
+                 and equality. */
+              !(total >= 10) != (rate < 2);
+            }
+            """;
+        StringBuilder builder = new StringBuilder(size);
+        while (builder.length() + unit.length() <= size) {
+            builder.append(unit);
+        }
+        builder.append(" ".repeat(size - builder.length()));
+        return builder.toString();
+    }
+
+    /**
+     * Expression statements over numeric literals, strings and a local variable.
+     */
+    static String expressions (int statements) {
+        StringBuilder builder = new StringBuilder("{\n  var x = 3;\n");
+        for (int i = 0; i < statements; i++) {
+            builder.append(switch (i % 4) {
+                case 0 -> "  x = x * 2 - (x - 1) / 4 + " + i + ";\n";
+                case 1 -> "  -x + 1.5 * (x + 2) > 10;\n";
+                case 2 -> "  \"item \" + " + i + " + \": \" + x;\n";
+                default -> "  !(x <= 0) != (x >= 100);\n";
+            });
+        }
+        return builder.append("}\n").toString();
+    }
+
+    /**
+     * Reads of a variable declared {@code depth} scopes out, every scope declaring a variable so that it has a frame.
+     * A negative depth reads a global variable instead.
+     */
+    static String lookups (int depth, int reads) {
+        StringBuilder builder = new StringBuilder("var x = 1;\n");
+        if (depth >= 0) {
+            builder.append("{ var x = 2;\n");
+        }
+        for (int i = 0; i < depth; i++) {
+            builder.append("{ var v").append(i).append(" = ").append(i).append(";\n");
+        }
+        builder.append("x;\n".repeat(reads));
+        builder.append("}\n".repeat(depth + 1));
+        return builder.toString();
+    }
+
+    /**
+     * Repeated entry into and exit from blocks, with or without local variables.
+     */
+    static String blocks (int count, boolean declarations) {
+        String block = declarations ? "{ var a = 1; { var b = a; } }\n" : "{ 1; { 2; } }\n";
+        return block.repeat(count);
+    }
+
+    static List<Stmt> parse (String source) {
+        List<Token> tokens = new Scanner(source).scanTokens();
+        List<Stmt> statements = new Parser(tokens).parse();
+        new Resolver().resolve(statements);
+        return statements;
+    }
+}
@@ -0,0 +1,253 @@
+package com.craftinginterpreters.lox;
+
+import java.util.List;
+
+import static com.craftinginterpreters.lox.ProgramArena.*;
+import static com.craftinginterpreters.lox.Values.*;
+
+/**
+ * Tree-walking engine running programs flattened into a {@link ProgramArena}: nodes are read from consecutive words of
+ * a primitive array rather than by chasing object references, and dispatched on their kind with a switch rather than
+ * through a visitor. Results and runtime errors are the same as the ones of the {@link Interpreter}.
+ */
+public final class ArenaEngine implements Engine {
+    private final OutputSink out;
+    private final ErrorReporter errors;
+    private final Environment globals = new Environment();
+    private Frame frame = null;
+
+    // The program running.
+    private int[] nodes;
+    private int[] lists;
+    private Object[] constants;
+
+    // Outcome of the last call to evaluateNumber: whether the expression produced a number, and its value otherwise.
+    private boolean isNumber;
+    private Object boxed;
+
+    public ArenaEngine () {
+        this(OutputSink.of(System.out), new ErrorReporter(System.err));
+    }
+
+    public ArenaEngine (OutputSink out, ErrorReporter errors) {
+        this.out = out;
+        this.errors = errors;
+    }
+
+    @Override
+    public void interpret (List<Stmt> statements) {
+        prepare(statements).run();
+    }
+
+    /**
+     * Flattens the statements, the returned program only holding on to the arena.
+     */
+    @Override
+    public Runnable prepare (List<Stmt> statements) {
+        ProgramArena arena = ProgramArena.of(statements);
+        return () -> run(arena);
+    }
+
+    private void run (ProgramArena arena) {
+        nodes = arena.nodes;
+        lists = arena.lists;
+        constants = arena.constants.toArray();
+        try {
+            executeAll(arena.first, arena.count);
+        } catch (RuntimeError error) {
+            frame = null;
+            errors.runtimeError(error);
+        } finally {
+            nodes = null;
+            lists = null;
+            constants = null;
+        }
+    }
+
+    private void executeAll (int first, int count) {
+        for (int i = first; i < first + count; i++) {
+            execute(lists[i]);
+        }
+    }
+
+    private void execute (int node) {
+        int base = node * WORDS;
+        switch (kind(nodes, node)) {
+            case EXPRESSION -> evaluate(nodes[base + 1]);
+            case PRINT -> print(out, evaluate(nodes[base + 1]));
+            case VAR_GLOBAL -> {
+                Object value = nodes[base + 1] < 0 ? null : evaluate(nodes[base + 1]);
+                globals.define(((Token) constants[nodes[base + 2]]).symbol(), value);
+            }
+            case VAR_LOCAL -> {
+                Object value = nodes[base + 1] < 0 ? null : evaluate(nodes[base + 1]);
+                frame.define(nodes[base + 2], value);
+            }
+            case BLOCK -> {
+                // Blocks without declarations share the frame of the enclosing scope.
+                if (nodes[base + 3] == 0) {
+                    executeAll(nodes[base + 1], nodes[base + 2]);
+                    return;
+                }
+                Frame previous = frame;
+                try {
+                    frame = new Frame(frame, nodes[base + 3]);
+                    executeAll(nodes[base + 1], nodes[base + 2]);
+                } finally {
+                    frame = previous;
+                }
+            }
+            default -> throw new IllegalStateException("Not a statement: " + kind(nodes, node));
+        }
+    }
+
+    private Object evaluate (int node) {
+        int base = node * WORDS;
+        switch (kind(nodes, node)) {
+            case LITERAL -> {
+                return constants[nodes[base + 1]];
+            }
+            case GLOBAL -> {
+                try {
+                    return globals.get((Token) constants[nodes[base + 1]]);
+                } catch (RuntimeError error) {
+                    throw atLine(error, nodes[base + 3]);
+                }
+            }
+            case LOCAL -> {
+                return frame.get(nodes[base + 1], nodes[base + 2]);
+            }
+            case ASSIGN_GLOBAL -> {
+                Object value = evaluate(nodes[base + 1]);
+                try {
+                    globals.assign((Token) constants[nodes[base + 2]], value);
+                } catch (RuntimeError error) {
+                    throw atLine(error, nodes[base + 3]);
+                }
+                return value;
+            }
+            case ASSIGN_LOCAL -> {
+                Object value = evaluate(nodes[base + 1]);
+                frame.assign(nodes[base + 2], nodes[base + 3], value);
+                return value;
+            }
+            case UNARY -> {
+                if (operator(nodes, node) == TokenType.MINUS) {
+                    return evaluateNumber(node);
+                }
+                return unary(operatorToken(node), evaluate(nodes[base + 1]));
+            }
+            case BINARY -> {
+                return evaluateBinary(node);
+            }
+            default -> throw new IllegalStateException("Not an expression: " + kind(nodes, node));
+        }
+    }
+
+    private Object evaluateBinary (int node) {
+        int base = node * WORDS;
+        TokenType type = operator(nodes, node);
+        switch (type) {
+            case MINUS, STAR, SLASH, PLUS -> {
+                // Nested arithmetic stays unboxed, only the final result is boxed.
+                double value = evaluateNumber(node);
+                return isNumber ? (Object) value : boxed;
+            }
+            case GREATER, GREATER_EQUAL, LESS, LESS_EQUAL -> {
+                double left = evaluateNumber(nodes[base + 1]);
+                boolean leftIsNumber = isNumber;
+                double right = evaluateNumber(nodes[base + 2]);
+                if (!leftIsNumber || !isNumber) {
+                    throw new RuntimeError(operatorToken(node), "Operands must be numbers.");
+                }
+                return switch (type) {
+                    case GREATER -> left > right;
+                    case GREATER_EQUAL -> left >= right;
+                    case LESS -> left < right;
+                    default -> left <= right;
+                };
+            }
+            default -> {
+                Object left = evaluate(nodes[base + 1]);
+                Object right = evaluate(nodes[base + 2]);
+                return binary(operatorToken(node), left, right);
+            }
+        }
+    }
+
+    /**
+     * Evaluates an expression expected to produce a number without boxing intermediate results, as
+     * {@link Interpreter#evaluateNumber(Expr)} does.
+     */
+    private double evaluateNumber (int node) {
+        int base = node * WORDS;
+        int kind = kind(nodes, node);
+        if (kind == LITERAL) {
+            return unbox(constants[nodes[base + 1]]);
+        }
+        if (kind == UNARY && operator(nodes, node) == TokenType.MINUS) {
+            double right = evaluateNumber(nodes[base + 1]);
+            if (!isNumber) {
+                throw new RuntimeError(operatorToken(node), "Operand must be a number.");
+            }
+            return -right;
+        }
+        if (kind == BINARY && isArithmetic(operator(nodes, node))) {
+            return evaluateArithmetic(node);
+        }
+        return unbox(evaluate(node));
+    }
+
+    private double evaluateArithmetic (int node) {
+        int base = node * WORDS;
+        double left = evaluateNumber(nodes[base + 1]);
+        boolean leftIsNumber = isNumber;
+        Object leftBoxed = boxed;
+        double right = evaluateNumber(nodes[base + 2]);
+
+        TokenType type = operator(nodes, node);
+        if (leftIsNumber && isNumber) {
+            return switch (type) {
+                case MINUS -> left - right;
+                case STAR -> left * right;
+                case SLASH -> {
+                    checkNonzeroDenominator(operatorToken(node), right);
+                    yield left / right;
+                }
+                default -> left + right;
+            };
+        }
+        if (type == TokenType.PLUS) {
+            Object leftValue = leftIsNumber ? (Object) left : leftBoxed;
+            Object rightValue = isNumber ? (Object) right : boxed;
+            return unbox(add(operatorToken(node), leftValue, rightValue));
+        }
+        throw new RuntimeError(operatorToken(node), "Operands must be numbers.");
+    }
+
+    private static boolean isArithmetic (TokenType type) {
+        return type == TokenType.MINUS || type == TokenType.STAR || type == TokenType.SLASH || type == TokenType.PLUS;
+    }
+
+    private double unbox (Object value) {
+        if (value instanceof Double number) {
+            isNumber = true;
+            return number;
+        }
+        isNumber = false;
+        boxed = value;
+        return 0;
+    }
+
+    /**
+     * Builds a token standing for the operator of a node, for error reporting only.
+     */
+    private Token operatorToken (int node) {
+        return new Token(ProgramArena.operator(nodes, node), "", null, nodes[node * WORDS + 3]);
+    }
+
+    private static RuntimeError atLine (RuntimeError error, int line) {
+        Token token = new Token(error.token.type, error.token.lexeme, error.token.literal, line);
+        return new RuntimeError(token, error.getMessage());
+    }
+}
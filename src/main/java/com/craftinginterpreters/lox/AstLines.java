@@ -0,0 +1,26 @@
+package com.craftinginterpreters.lox;
+
+/**
+ * Source lines of statements and expressions, for reports about a node rather than one of its tokens, such as profiles
+ * and execution limits.
+ */
+final class AstLines {
+    private AstLines () {}
+
+    /**
+     * The line of the first token of a node, or {@code -1} for an empty block, which has none.
+     */
+    static int line (Object node) {
+        if (node instanceof Stmt.Block block) return block.statements.isEmpty() ? -1 : line(block.statements.get(0));
+        if (node instanceof Stmt.Expression statement) return line(statement.expression);
+        if (node instanceof Stmt.Print statement) return statement.line;
+        if (node instanceof Stmt.Var statement) return statement.name.line;
+        if (node instanceof Expr.Assign expr) return expr.name.line;
+        if (node instanceof Expr.Binary expr) return line(expr.left);
+        if (node instanceof Expr.Grouping expr) return line(expr.expression);
+        if (node instanceof Expr.Literal expr) return expr.line;
+        if (node instanceof Expr.Unary expr) return expr.operator.line;
+        if (node instanceof Expr.Variable expr) return expr.name.line;
+        return -1;
+    }
+}
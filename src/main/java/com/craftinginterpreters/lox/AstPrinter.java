@@ -7,10 +7,10 @@ public final class AstPrinter implements Expr.Visitor<String> {
         Expr expression = new Expr.Binary(
             new Expr.Unary(
                 new Token(MINUS, "-", null, 1),
-                new Expr.Literal(123)),
+                new Expr.Literal(123, 1)),
             new Token(TokenType.STAR, "*", null, 1),
             new Expr.Grouping(
-                new Expr.Literal(45.67))
+                new Expr.Literal(45.67, 1))
         );
 
         System.out.println(new AstPrinter().print(expression));
@@ -0,0 +1,128 @@
+package com.craftinginterpreters.lox;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.craftinginterpreters.lox.AstWriter.*;
+
+/**
+ * Reads statements serialized by {@link AstWriter}. Malformed input raises an {@link IOException}.
+ */
+final class AstReader {
+    private static final TokenType[] TOKEN_TYPES = TokenType.values();
+
+    private final DataInputStream input;
+    private final List<String> strings = new ArrayList<>();
+
+    AstReader (DataInputStream input) {
+        this.input = input;
+    }
+
+    List<Stmt> read () throws IOException {
+        return readStatements();
+    }
+
+    private List<Stmt> readStatements () throws IOException {
+        int count = input.readInt();
+        if (count < 0) throw new IOException("Negative statement count.");
+        List<Stmt> statements = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            statements.add(readStatement());
+        }
+        return statements;
+    }
+
+    private Stmt readStatement () throws IOException {
+        byte tag = input.readByte();
+        return switch (tag) {
+            case BLOCK -> new Stmt.Block(readStatements());
+            case EXPRESSION -> new Stmt.Expression(readExpression());
+            case PRINT -> {
+                Expr expression = readExpression();
+                yield new Stmt.Print(expression, input.readInt());
+            }
+            case VAR -> {
+                Token name = readToken();
+                yield new Stmt.Var(name, readOptionalExpression());
+            }
+            default -> throw new IOException("Unexpected statement tag " + tag + ".");
+        };
+    }
+
+    private Expr readOptionalExpression () throws IOException {
+        byte tag = input.readByte();
+        return tag == NO_EXPR ? null : readExpression(tag);
+    }
+
+    private Expr readExpression () throws IOException {
+        return readExpression(input.readByte());
+    }
+
+    private Expr readExpression (byte tag) throws IOException {
+        return switch (tag) {
+            case ASSIGN -> {
+                Token name = readToken();
+                yield new Expr.Assign(name, readExpression());
+            }
+            case BINARY -> {
+                Expr left = readExpression();
+                Token operator = readToken();
+                yield new Expr.Binary(left, operator, readExpression());
+            }
+            case GROUPING -> new Expr.Grouping(readExpression());
+            case LITERAL -> {
+                Object value = readLiteral();
+                yield new Expr.Literal(value, input.readInt());
+            }
+            case UNARY -> {
+                Token operator = readToken();
+                yield new Expr.Unary(operator, readExpression());
+            }
+            case VARIABLE -> new Expr.Variable(readToken());
+            default -> throw new IOException("Unexpected expression tag " + tag + ".");
+        };
+    }
+
+    private Object readLiteral () throws IOException {
+        byte kind = input.readByte();
+        return switch (kind) {
+            case NIL -> null;
+            case FALSE -> false;
+            case TRUE -> true;
+            case NUMBER -> input.readDouble();
+            case STRING -> readString();
+            default -> throw new IOException("Unexpected literal kind " + kind + ".");
+        };
+    }
+
+    private Token readToken () throws IOException {
+        int ordinal = input.readUnsignedByte();
+        if (ordinal >= TOKEN_TYPES.length) throw new IOException("Unexpected token type " + ordinal + ".");
+        TokenType type = TOKEN_TYPES[ordinal];
+        String lexeme = readString();
+        int line = input.readInt();
+        if (type == TokenType.IDENTIFIER) {
+            Symbol symbol = Symbol.intern(lexeme);
+            return new Token(type, symbol.name, symbol, line);
+        }
+        return new Token(type, lexeme, null, line);
+    }
+
+    private String readString () throws IOException {
+        int index = input.readInt();
+        if (index >= 0) {
+            if (index >= strings.size()) throw new IOException("Unknown string " + index + ".");
+            return strings.get(index);
+        }
+        int length = input.readInt();
+        if (length < 0 || length > input.available()) throw new IOException("Invalid string length " + length + ".");
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        String string = new String(bytes, StandardCharsets.UTF_8);
+        strings.add(string);
+        return string;
+    }
+}
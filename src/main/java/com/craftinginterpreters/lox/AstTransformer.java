@@ -0,0 +1,223 @@
+package com.craftinginterpreters.lox;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Base class for passes rewriting the AST. Every visit method rebuilds its node from the transformed children, but
+ * returns the original node when none of them changed. Statement visitors may return {@code null} to remove the
+ * statement from its enclosing list.
+ *
+ * <p>Nodes are transformed bottom-up off a stack of pending work rather than by recursion, so that deeply nested
+ * programs do not overflow the Java stack: by the time a node is visited, its children have been transformed, and
+ * {@link #transform(Expr)} only hands their results over.
+ */
+abstract class AstTransformer implements Pass, Expr.Visitor<Expr>, Stmt.Visitor<Stmt> {
+    // Nodes left to transform, each with whether its children have been scheduled already.
+    private Object[] work = new Object[16];
+    private boolean[] entered = new boolean[16];
+    private int workSize = 0;
+    // Nodes transformed whose parent has not been visited yet, with their results.
+    private Object[] done = new Object[16];
+    private Object[] results = new Object[16];
+    private int doneSize = 0;
+    // The children of the node being visited, in done[first, end), next being the one expected to be asked for.
+    private int first = 0;
+    private int next = 0;
+    private int end = 0;
+
+    @Override
+    public List<Stmt> run (List<Stmt> statements) {
+        return transform(statements);
+    }
+
+    @Override
+    public Stmt visitBlockStmt(Stmt.Block stmt) {
+        List<Stmt> statements = transform(stmt.statements);
+        return statements == stmt.statements ? stmt : new Stmt.Block(statements);
+    }
+
+    @Override
+    public Stmt visitExpressionStmt(Stmt.Expression stmt) {
+        Expr expression = transform(stmt.expression);
+        return expression == stmt.expression ? stmt : new Stmt.Expression(expression);
+    }
+
+    @Override
+    public Stmt visitPrintStmt(Stmt.Print stmt) {
+        Expr expression = transform(stmt.expression);
+        return expression == stmt.expression ? stmt : new Stmt.Print(expression, stmt.line);
+    }
+
+    @Override
+    public Stmt visitVarStmt(Stmt.Var stmt) {
+        if (stmt.initializer == null) return stmt;
+        Expr initializer = transform(stmt.initializer);
+        return initializer == stmt.initializer ? stmt : new Stmt.Var(stmt.name, initializer);
+    }
+
+    @Override
+    public Expr visitAssignExpr(Expr.Assign expr) {
+        Expr value = transform(expr.value);
+        return value == expr.value ? expr : new Expr.Assign(expr.name, value);
+    }
+
+    @Override
+    public Expr visitBinaryExpr(Expr.Binary expr) {
+        Expr left = transform(expr.left);
+        Expr right = transform(expr.right);
+        return left == expr.left && right == expr.right ? expr : new Expr.Binary(left, expr.operator, right);
+    }
+
+    @Override
+    public Expr visitGroupingExpr(Expr.Grouping expr) {
+        Expr expression = transform(expr.expression);
+        return expression == expr.expression ? expr : new Expr.Grouping(expression);
+    }
+
+    @Override
+    public Expr visitLiteralExpr(Expr.Literal expr) {
+        return expr;
+    }
+
+    @Override
+    public Expr visitUnaryExpr(Expr.Unary expr) {
+        Expr right = transform(expr.right);
+        return right == expr.right ? expr : new Expr.Unary(expr.operator, right);
+    }
+
+    @Override
+    public Expr visitVariableExpr(Expr.Variable expr) {
+        return expr;
+    }
+
+    final List<Stmt> transform (List<Stmt> statements) {
+        List<Stmt> result = null;
+        for (int i = 0; i < statements.size(); i++) {
+            Stmt statement = statements.get(i);
+            Stmt transformed = transform(statement);
+            // Only copy the list once the first statement changes.
+            if (transformed != statement && result == null) {
+                result = new ArrayList<>(statements.subList(0, i));
+            }
+            if (result != null && transformed != null) {
+                result.add(transformed);
+            }
+        }
+        return result == null ? statements : result;
+    }
+
+    final Stmt transform (Stmt statement) {
+        return (Stmt) transformNode(statement);
+    }
+
+    final Expr transform (Expr expression) {
+        return (Expr) transformNode(expression);
+    }
+
+    private Object transformNode (Object root) {
+        // The children of the node being visited are transformed already, and usually asked for in order.
+        if (next < end && done[next] == root) return results[next++];
+        for (int i = first; i < end; i++) {
+            if (done[i] == root) return results[i];
+        }
+
+        // Otherwise, transform the subtree on top of the traversal in progress, if any.
+        int savedFirst = first;
+        int savedNext = next;
+        int savedEnd = end;
+        int workBottom = workSize;
+        int doneBottom = doneSize;
+        try {
+            push(root);
+            while (workSize > workBottom) {
+                int top = workSize - 1;
+                Object node = work[top];
+                if (!entered[top]) {
+                    entered[top] = true;
+                    scheduleChildren(node);
+                    continue;
+                }
+                work[top] = null;
+                workSize = top;
+                first = doneSize - childCount(node);
+                next = first;
+                end = doneSize;
+                Object result = node instanceof Stmt statement ? statement.accept(this) : ((Expr) node).accept(this);
+                popDone(first);
+                pushDone(node, result);
+            }
+            return results[doneBottom];
+        } finally {
+            while (workSize > workBottom) {
+                work[--workSize] = null;
+            }
+            popDone(doneBottom);
+            first = savedFirst;
+            next = savedNext;
+            end = savedEnd;
+        }
+    }
+
+    // Children are pushed last first, so that they are transformed in order.
+    private void scheduleChildren (Object node) {
+        if (node instanceof Stmt.Block stmt) {
+            for (int i = stmt.statements.size() - 1; i >= 0; i--) {
+                push(stmt.statements.get(i));
+            }
+        } else if (node instanceof Stmt.Expression stmt) {
+            push(stmt.expression);
+        } else if (node instanceof Stmt.Print stmt) {
+            push(stmt.expression);
+        } else if (node instanceof Stmt.Var stmt) {
+            if (stmt.initializer != null) push(stmt.initializer);
+        } else if (node instanceof Expr.Assign expr) {
+            push(expr.value);
+        } else if (node instanceof Expr.Binary expr) {
+            push(expr.right);
+            push(expr.left);
+        } else if (node instanceof Expr.Grouping expr) {
+            push(expr.expression);
+        } else if (node instanceof Expr.Unary expr) {
+            push(expr.right);
+        }
+    }
+
+    private static int childCount (Object node) {
+        if (node instanceof Stmt.Block stmt) return stmt.statements.size();
+        if (node instanceof Stmt.Var stmt) return stmt.initializer == null ? 0 : 1;
+        if (node instanceof Expr.Binary) return 2;
+        if (node instanceof Expr.Literal || node instanceof Expr.Variable) return 0;
+        return 1;
+    }
+
+    private void push (Object node) {
+        if (workSize == work.length) {
+            work = Arrays.copyOf(work, workSize * 2);
+            entered = Arrays.copyOf(entered, workSize * 2);
+        }
+        work[workSize] = node;
+        entered[workSize] = false;
+        workSize++;
+    }
+
+    private void pushDone (Object node, Object result) {
+        if (doneSize == done.length) {
+            done = Arrays.copyOf(done, doneSize * 2);
+            results = Arrays.copyOf(results, doneSize * 2);
+        }
+        done[doneSize] = node;
+        results[doneSize] = result;
+        doneSize++;
+    }
+
+    // Clears the entries popped, so that the transformer does not keep the program alive once done.
+    private void popDone (int size) {
+        while (doneSize > size) {
+            doneSize--;
+            done[doneSize] = null;
+            results[doneSize] = null;
+        }
+    }
+}
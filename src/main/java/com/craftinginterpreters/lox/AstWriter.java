@@ -0,0 +1,201 @@
+package com.craftinginterpreters.lox;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serializes parsed statements to the compact binary format read by {@link AstReader}. Every node starts with a tag
+ * byte and strings are written once, then referred to by their index in order of first appearance.
+ */
+final class AstWriter implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
+    static final byte BLOCK = 0;
+    static final byte EXPRESSION = 1;
+    static final byte PRINT = 2;
+    static final byte VAR = 3;
+    static final byte ASSIGN = 4;
+    static final byte BINARY = 5;
+    static final byte GROUPING = 6;
+    static final byte LITERAL = 7;
+    static final byte UNARY = 8;
+    static final byte VARIABLE = 9;
+    static final byte NO_EXPR = 10;
+
+    static final byte NIL = 0;
+    static final byte FALSE = 1;
+    static final byte TRUE = 2;
+    static final byte NUMBER = 3;
+    static final byte STRING = 4;
+
+    private final DataOutputStream output;
+    private final Map<String, Integer> strings = new HashMap<>();
+
+    AstWriter (DataOutputStream output) {
+        this.output = output;
+    }
+
+    void write (List<Stmt> statements) throws IOException {
+        try {
+            writeStatements(statements);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public Void visitBlockStmt(Stmt.Block stmt) {
+        tag(BLOCK);
+        writeStatements(stmt.statements);
+        return null;
+    }
+
+    @Override
+    public Void visitExpressionStmt(Stmt.Expression stmt) {
+        tag(EXPRESSION);
+        write(stmt.expression);
+        return null;
+    }
+
+    @Override
+    public Void visitPrintStmt(Stmt.Print stmt) {
+        tag(PRINT);
+        write(stmt.expression);
+        line(stmt.line);
+        return null;
+    }
+
+    @Override
+    public Void visitVarStmt(Stmt.Var stmt) {
+        tag(VAR);
+        write(stmt.name);
+        if (stmt.initializer == null) {
+            tag(NO_EXPR);
+        } else {
+            write(stmt.initializer);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitAssignExpr(Expr.Assign expr) {
+        tag(ASSIGN);
+        write(expr.name);
+        write(expr.value);
+        return null;
+    }
+
+    @Override
+    public Void visitBinaryExpr(Expr.Binary expr) {
+        tag(BINARY);
+        write(expr.left);
+        write(expr.operator);
+        write(expr.right);
+        return null;
+    }
+
+    @Override
+    public Void visitGroupingExpr(Expr.Grouping expr) {
+        tag(GROUPING);
+        write(expr.expression);
+        return null;
+    }
+
+    @Override
+    public Void visitLiteralExpr(Expr.Literal expr) {
+        tag(LITERAL);
+        try {
+            if (expr.value == null) {
+                output.writeByte(NIL);
+            } else if (expr.value instanceof Boolean bool) {
+                output.writeByte(bool ? TRUE : FALSE);
+            } else if (expr.value instanceof Double number) {
+                output.writeByte(NUMBER);
+                output.writeDouble(number);
+            } else {
+                output.writeByte(STRING);
+                writeString(expr.value.toString());
+            }
+            output.writeInt(expr.line);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitUnaryExpr(Expr.Unary expr) {
+        tag(UNARY);
+        write(expr.operator);
+        write(expr.right);
+        return null;
+    }
+
+    @Override
+    public Void visitVariableExpr(Expr.Variable expr) {
+        tag(VARIABLE);
+        write(expr.name);
+        return null;
+    }
+
+    private void writeStatements (List<Stmt> statements) {
+        try {
+            output.writeInt(statements.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (Stmt statement : statements) {
+            statement.accept(this);
+        }
+    }
+
+    private void write (Expr expression) {
+        expression.accept(this);
+    }
+
+    /**
+     * Writes the parts of a token the AST depends on: identifiers and operators only need their type, lexeme and line.
+     */
+    private void write (Token token) {
+        try {
+            output.writeByte(token.type.ordinal());
+            writeString(token.lexeme);
+            output.writeInt(token.line);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void line (int line) {
+        try {
+            output.writeInt(line);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeString (String string) throws IOException {
+        Integer index = strings.get(string);
+        if (index != null) {
+            output.writeInt(index);
+            return;
+        }
+        strings.put(string, strings.size());
+        // New strings are announced with a negative index.
+        output.writeInt(-1);
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private void tag (byte tag) {
+        try {
+            output.writeByte(tag);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.craftinginterpreters.lox;
+
+import java.time.Duration;
+
+/**
+ * Bounds on the work of the scripts run by a {@link MeteredInterpreter}: an amount of fuel, one unit of which is
+ * burnt by every statement executed and expression evaluated, and a timeout counted from the first statement run.
+ * Scripts can also be cancelled from another thread, either through {@link #cancel()} or by interrupting the thread
+ * running them. A budget can be shared by several contexts, each burning its own fuel.
+ */
+public final class Budget {
+    private long fuel = Long.MAX_VALUE;
+    private long timeoutNanos = Long.MAX_VALUE;
+    private volatile boolean cancelled = false;
+
+    public Budget fuel (long fuel) {
+        if (fuel < 0) throw new IllegalArgumentException("Negative fuel " + fuel + ".");
+        this.fuel = fuel;
+        return this;
+    }
+
+    public Budget timeout (Duration timeout) {
+        if (timeout.isNegative()) throw new IllegalArgumentException("Negative timeout " + timeout + ".");
+        this.timeoutNanos = timeout.toNanos();
+        return this;
+    }
+
+    /**
+     * Stops the scripts using this budget at their next check, and the ones started afterwards right away.
+     */
+    public void cancel () {
+        cancelled = true;
+    }
+
+    long fuel () {
+        return fuel;
+    }
+
+    long timeoutNanos () {
+        return timeoutNanos;
+    }
+
+    boolean isCancelled () {
+        return cancelled;
+    }
+}
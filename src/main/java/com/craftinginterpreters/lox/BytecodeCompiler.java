@@ -0,0 +1,216 @@
+package com.craftinginterpreters.lox;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.craftinginterpreters.lox.OpCode.*;
+
+/**
+ * Compiles resolved statements to a {@link Chunk} for the {@link VirtualMachine}. Block locals live on the VM stack
+ * below the temporaries of the statement being executed: the resolver's (depth, slot) pair becomes an absolute stack
+ * slot by adding the base of the block at that depth.
+ */
+final class BytecodeCompiler implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
+    private static final int MAX_OPERAND = 0xFFFF;
+
+    private final ErrorReporter errors;
+    private final Chunk chunk = new Chunk();
+    // Stack slot of the first local of every enclosing block that has locals, innermost last.
+    private final List<Integer> blockBases = new ArrayList<>();
+    private int locals = 0;
+    private int stackDepth = 0;
+    boolean hadError = false;
+    // Line of the statement or operator being compiled.
+    private int line = 0;
+
+    BytecodeCompiler (ErrorReporter errors) {
+        this.errors = errors;
+    }
+
+    /**
+     * Compiles the statements, reporting an error through {@link ErrorReporter#error(int, String)} and setting
+     * {@link #hadError} if the program does not fit the instruction encoding.
+     */
+    Chunk compile (List<Stmt> statements) {
+        for (Stmt statement : statements) {
+            compile(statement);
+        }
+        emit(RETURN, 0);
+        return chunk;
+    }
+
+    @Override
+    public Void visitBlockStmt(Stmt.Block stmt) {
+        if (stmt.slots == 0) {
+            for (Stmt statement : stmt.statements) {
+                compile(statement);
+            }
+            return null;
+        }
+        emitWithOperand(RESERVE, stmt.slots);
+        blockBases.add(locals);
+        locals += stmt.slots;
+        push(stmt.slots);
+        for (Stmt statement : stmt.statements) {
+            compile(statement);
+        }
+        emitWithOperand(POP_N, stmt.slots);
+        locals -= stmt.slots;
+        blockBases.remove(blockBases.size() - 1);
+        pop(stmt.slots);
+        return null;
+    }
+
+    @Override
+    public Void visitExpressionStmt(Stmt.Expression stmt) {
+        compile(stmt.expression);
+        emit(POP, -1);
+        return null;
+    }
+
+    @Override
+    public Void visitPrintStmt(Stmt.Print stmt) {
+        compile(stmt.expression);
+        emit(PRINT, -1);
+        return null;
+    }
+
+    @Override
+    public Void visitVarStmt(Stmt.Var stmt) {
+        line = stmt.name.line;
+        if (stmt.initializer != null) {
+            compile(stmt.initializer);
+        } else {
+            emit(NIL, 1);
+        }
+        if (stmt.slot < 0) {
+            line = stmt.name.line;
+            emitWithOperand(DEFINE_GLOBAL, chunk.addName(stmt.name));
+            pop(1);
+        } else {
+            emitWithOperand(SET_LOCAL, stackSlot(0, stmt.slot));
+            emit(POP, -1);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitAssignExpr(Expr.Assign expr) {
+        compile(expr.value);
+        line = expr.name.line;
+        if (expr.depth < 0) {
+            emitWithOperand(SET_GLOBAL, chunk.addName(expr.name));
+        } else {
+            emitWithOperand(SET_LOCAL, stackSlot(expr.depth, expr.slot));
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitBinaryExpr(Expr.Binary expr) {
+        compile(expr.left);
+        compile(expr.right);
+        line = expr.operator.line;
+        switch (expr.operator.type) {
+            case PLUS -> emit(ADD, -1);
+            case MINUS -> emit(SUBTRACT, -1);
+            case STAR -> emit(MULTIPLY, -1);
+            case SLASH -> emit(DIVIDE, -1);
+            case GREATER -> emit(GREATER, -1);
+            case GREATER_EQUAL -> emit(GREATER_EQUAL, -1);
+            case LESS -> emit(LESS, -1);
+            case LESS_EQUAL -> emit(LESS_EQUAL, -1);
+            case BANG_EQUAL -> emit(NOT_EQUAL, -1);
+            default -> {
+                emitWithOperand(BINARY, constant(expr.operator));
+                pop(1);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitGroupingExpr(Expr.Grouping expr) {
+        compile(expr.expression);
+        return null;
+    }
+
+    @Override
+    public Void visitLiteralExpr(Expr.Literal expr) {
+        if (expr.value == null) {
+            emit(NIL, 1);
+        } else if (Boolean.TRUE.equals(expr.value)) {
+            emit(TRUE, 1);
+        } else if (Boolean.FALSE.equals(expr.value)) {
+            emit(FALSE, 1);
+        } else {
+            emitWithOperand(CONSTANT, constant(expr.value));
+            push(1);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitUnaryExpr(Expr.Unary expr) {
+        compile(expr.right);
+        line = expr.operator.line;
+        switch (expr.operator.type) {
+            case MINUS -> emit(NEGATE, 0);
+            case BANG -> emit(NOT, 0);
+            default -> throw new IllegalStateException("Unexpected unary operator " + expr.operator.type);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitVariableExpr(Expr.Variable expr) {
+        line = expr.name.line;
+        if (expr.depth < 0) {
+            emitWithOperand(GET_GLOBAL, chunk.addName(expr.name));
+        } else {
+            emitWithOperand(GET_LOCAL, stackSlot(expr.depth, expr.slot));
+        }
+        push(1);
+        return null;
+    }
+
+    private void compile (Stmt statement) {
+        statement.accept(this);
+    }
+
+    private void compile (Expr expression) {
+        expression.accept(this);
+    }
+
+    private int stackSlot (int depth, int slot) {
+        return blockBases.get(blockBases.size() - 1 - depth) + slot;
+    }
+
+    private int constant (Object value) {
+        return chunk.addConstant(value);
+    }
+
+    private void emit (byte opCode, int stackEffect) {
+        chunk.write(opCode, line);
+        if (stackEffect > 0) push(stackEffect);
+        if (stackEffect < 0) pop(-stackEffect);
+    }
+
+    private void emitWithOperand (byte opCode, int operand) {
+        if (operand > MAX_OPERAND && !hadError) {
+            errors.error(line, "Too many constants or locals in one chunk.");
+            hadError = true;
+        }
+        chunk.write(opCode, line);
+        chunk.writeShort(operand, line);
+    }
+
+    private void push (int count) {
+        stackDepth += count;
+        chunk.maxStack = Math.max(chunk.maxStack, stackDepth);
+    }
+
+    private void pop (int count) {
+        stackDepth -= count;
+    }
+}
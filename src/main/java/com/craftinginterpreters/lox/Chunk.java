@@ -0,0 +1,90 @@
+package com.craftinginterpreters.lox;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compiled program: the bytecode, its constant pool and a run-length encoded line table mapping code offsets to
+ * source lines.
+ */
+final class Chunk {
+    private byte[] code = new byte[256];
+    private int count = 0;
+
+    private final List<Object> constants = new ArrayList<>();
+    private final Map<Object, Integer> constantIndices = new HashMap<>();
+
+    // Pairs of (first code offset, line), appended whenever the line changes.
+    private int[] lines = new int[16];
+    private int lineCount = 0;
+
+    int maxStack = 0;
+
+    void write (byte value, int line) {
+        if (count == code.length) {
+            code = Arrays.copyOf(code, count * 2);
+        }
+        if (lineCount == 0 || lines[lineCount - 1] != line) {
+            if (lineCount == lines.length) {
+                lines = Arrays.copyOf(lines, lineCount * 2);
+            }
+            lines[lineCount++] = count;
+            lines[lineCount++] = line;
+        }
+        code[count++] = value;
+    }
+
+    void writeShort (int value, int line) {
+        write((byte) (value >> 8), line);
+        write((byte) value, line);
+    }
+
+    /**
+     * Adds a value to the constant pool, reusing the slot of an equal value. Tokens are kept by identity, except for
+     * variable names (see {@link #addName(Token)}).
+     */
+    int addConstant (Object value) {
+        if (value instanceof Token) {
+            constants.add(value);
+            return constants.size() - 1;
+        }
+        return addUnique(value, value);
+    }
+
+    /**
+     * Adds the name token of a global variable to the constant pool, sharing one slot between all the tokens with the
+     * same lexeme. The line of the shared token is therefore meaningless: use {@link #lineAt(int)} instead.
+     */
+    int addName (Token name) {
+        return addUnique(name.symbol(), name);
+    }
+
+    private int addUnique (Object key, Object value) {
+        Integer index = constantIndices.get(key);
+        if (index == null) {
+            index = constants.size();
+            constants.add(value);
+            constantIndices.put(key, index);
+        }
+        return index;
+    }
+
+    byte[] code () {
+        return Arrays.copyOf(code, count);
+    }
+
+    Object[] constants () {
+        return constants.toArray();
+    }
+
+    int lineAt (int offset) {
+        int line = lines[1];
+        for (int i = 0; i < lineCount && lines[i] <= offset; i += 2) {
+            line = lines[i + 1];
+        }
+        return line;
+    }
+}
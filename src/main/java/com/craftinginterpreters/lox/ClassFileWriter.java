@@ -0,0 +1,242 @@
+package com.craftinginterpreters.lox;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes a class file holding static methods, for the {@link JvmCompiler}. Methods are straight-line code without
+ * branches nor exception handlers, which need no stack map frames: only the constant pool and the maximum stack depth
+ * and local count of every method are computed.
+ */
+final class ClassFileWriter {
+    // Java 17.
+    private static final int VERSION = 61;
+    private static final int ACC_STATIC = 0x0008;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+    // Entries by kind, so that the keys of a map are comparable should their hashes collide.
+    private final Map<String, Integer> utf8s = new HashMap<>();
+    private final Map<Integer, Integer> integers = new HashMap<>();
+    private final Map<Double, Integer> doubles = new HashMap<>();
+    private final Map<Long, Integer> references = new HashMap<>();
+    private int poolCount = 1;
+    private final ByteArrayOutputStream methodBytes = new ByteArrayOutputStream();
+    private final DataOutputStream methods = new DataOutputStream(methodBytes);
+    private int methodCount = 0;
+    private final int thisClass;
+    private final int superClass;
+
+    /**
+     * Starts a class with the internal name, such as {@code com/craftinginterpreters/lox/Program}.
+     */
+    ClassFileWriter (String name) {
+        thisClass = classRef(name);
+        superClass = classRef("java/lang/Object");
+    }
+
+    /**
+     * The number of constant pool slots used so far, which may not exceed {@code 0xFFFF}.
+     */
+    int poolCount () {
+        return poolCount;
+    }
+
+    int classRef (String name) {
+        return reference(CONSTANT_CLASS, utf8(name), 0);
+    }
+
+    int string (String value) {
+        return reference(CONSTANT_STRING, utf8(value), 0);
+    }
+
+    int integer (int value) {
+        return entry(integers, value, CONSTANT_INTEGER);
+    }
+
+    int doubleConstant (double value) {
+        return entry(doubles, value, CONSTANT_DOUBLE);
+    }
+
+    int fieldRef (String owner, String name, String descriptor) {
+        return reference(CONSTANT_FIELDREF, classRef(owner), nameAndType(name, descriptor));
+    }
+
+    int methodRef (String owner, String name, String descriptor) {
+        return reference(CONSTANT_METHODREF, classRef(owner), nameAndType(name, descriptor));
+    }
+
+    private int nameAndType (String name, String descriptor) {
+        return reference(CONSTANT_NAME_AND_TYPE, utf8(name), utf8(descriptor));
+    }
+
+    private int utf8 (String value) {
+        return entry(utf8s, value, CONSTANT_UTF8);
+    }
+
+    /**
+     * Adds an entry made of one or two indices of other entries, the second one being zero if there is none.
+     */
+    private int reference (int tag, int first, int second) {
+        return entry(references, (long) tag << 32 | (long) first << 16 | second, tag);
+    }
+
+    /**
+     * Adds a constant pool entry unless the map of its kind holds one with the same key: the value of strings and
+     * numbers, and the tag and indices of the other entries packed in a {@code long}.
+     */
+    private <K> int entry (Map<K, Integer> entries, K key, int tag) {
+        Integer index = entries.get(key);
+        if (index != null) return index;
+        index = poolCount;
+        try {
+            pool.writeByte(tag);
+            if (key instanceof String text) {
+                // Modified UTF-8, as the class file format expects it.
+                pool.writeUTF(text);
+            } else if (key instanceof Double number) {
+                pool.writeDouble(number);
+            } else if (key instanceof Integer number) {
+                pool.writeInt(number);
+            } else {
+                long indices = (Long) key;
+                pool.writeShort((int) (indices >> 16));
+                if (tag != CONSTANT_CLASS && tag != CONSTANT_STRING) pool.writeShort((int) indices);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // Doubles take two slots.
+        poolCount += tag == CONSTANT_DOUBLE ? 2 : 1;
+        entries.put(key, index);
+        return index;
+    }
+
+    void addMethod (String name, String descriptor, Code code) {
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        int codeIndex = utf8("Code");
+        try {
+            methods.writeShort(ACC_STATIC);
+            methods.writeShort(nameIndex);
+            methods.writeShort(descriptorIndex);
+            methods.writeShort(1);
+            methods.writeShort(codeIndex);
+            // max_stack, max_locals, code_length, code, exception_table_length and attributes_count.
+            methods.writeInt(2 + 2 + 4 + code.length + 2 + 2);
+            methods.writeShort(code.maxStack);
+            methods.writeShort(code.maxLocals);
+            methods.writeInt(code.length);
+            methods.write(code.bytes, 0, code.length);
+            methods.writeShort(0);
+            methods.writeShort(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        methodCount++;
+    }
+
+    byte[] toByteArray () {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(poolBytes.size() + methodBytes.size() + 32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(VERSION);
+            out.writeShort(poolCount);
+            poolBytes.writeTo(out);
+            out.writeShort(ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            // Interfaces and fields.
+            out.writeShort(0);
+            out.writeShort(0);
+            out.writeShort(methodCount);
+            methodBytes.writeTo(out);
+            // Attributes.
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * The bytecode of a method, tracking the depth of the operand stack, in slots, as instructions are added.
+     */
+    static final class Code {
+        private byte[] bytes = new byte[256];
+        private int length = 0;
+        private int stack = 0;
+        private int maxStack = 0;
+        private int maxLocals = 0;
+
+        int length () {
+            return length;
+        }
+
+        int maxLocals () {
+            return maxLocals;
+        }
+
+        /**
+         * Drops the instructions added since the code was {@code length} bytes long. The stack must have been as deep
+         * back then as it is now.
+         */
+        void truncate (int length) {
+            this.length = length;
+        }
+
+        /**
+         * Makes room for locals up to the index, excluded.
+         */
+        void useLocals (int count) {
+            maxLocals = Math.max(maxLocals, count);
+        }
+
+        void op (int opcode, int stackEffect) {
+            write(opcode);
+            adjust(stackEffect);
+        }
+
+        void opByte (int opcode, int operand, int stackEffect) {
+            write(opcode);
+            write(operand);
+            adjust(stackEffect);
+        }
+
+        void opShort (int opcode, int operand, int stackEffect) {
+            write(opcode);
+            write(operand >> 8);
+            write(operand);
+            adjust(stackEffect);
+        }
+
+        private void adjust (int stackEffect) {
+            stack += stackEffect;
+            maxStack = Math.max(maxStack, stack);
+        }
+
+        private void write (int value) {
+            if (length == bytes.length) {
+                bytes = Arrays.copyOf(bytes, length * 2);
+            }
+            bytes[length++] = (byte) value;
+        }
+    }
+}
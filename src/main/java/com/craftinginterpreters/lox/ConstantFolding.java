@@ -0,0 +1,50 @@
+package com.craftinginterpreters.lox;
+
+/**
+ * Replaces unary and binary operators applied to literals by the literal they evaluate to. Operations that would
+ * fail at runtime, such as a division by zero or an operand of the wrong type, are left untouched so that the error
+ * is still reported when (and if) the statement executes.
+ */
+final class ConstantFolding extends AstTransformer {
+
+    @Override
+    public String name () {
+        return "constant-folding";
+    }
+
+    @Override
+    public Expr visitBinaryExpr(Expr.Binary expr) {
+        Expr folded = super.visitBinaryExpr(expr);
+        if (folded instanceof Expr.Binary binary
+                && binary.left instanceof Expr.Literal left
+                && binary.right instanceof Expr.Literal right) {
+            try {
+                return new Expr.Literal(Values.binary(binary.operator, left.value, right.value), left.line);
+            } catch (RuntimeError error) {
+                return binary;
+            }
+        }
+        return folded;
+    }
+
+    @Override
+    public Expr visitUnaryExpr(Expr.Unary expr) {
+        Expr folded = super.visitUnaryExpr(expr);
+        if (folded instanceof Expr.Unary unary && unary.right instanceof Expr.Literal right) {
+            try {
+                return new Expr.Literal(Values.unary(unary.operator, right.value), unary.operator.line);
+            } catch (RuntimeError error) {
+                return unary;
+            }
+        }
+        return folded;
+    }
+
+    @Override
+    public Expr visitGroupingExpr(Expr.Grouping expr) {
+        // A parenthesized constant is a constant, e.g. in '(1 + 2) * 3'.
+        Expr expression = transform(expr.expression);
+        if (expression instanceof Expr.Literal) return expression;
+        return expression == expr.expression ? expr : new Expr.Grouping(expression);
+    }
+}
@@ -0,0 +1,55 @@
+package com.craftinginterpreters.lox;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Drops expression statements whose evaluation has no observable effect, i.e. that neither assign a variable nor may
+ * raise a runtime error, as well as blocks left empty. Variable reads are kept since reading an undefined variable is
+ * an error.
+ */
+final class DeadExpressionElimination extends AstTransformer {
+
+    @Override
+    public String name () {
+        return "dead-expression-elimination";
+    }
+
+    @Override
+    public Stmt visitExpressionStmt(Stmt.Expression stmt) {
+        return isPure(stmt.expression) ? null : stmt;
+    }
+
+    @Override
+    public Stmt visitBlockStmt(Stmt.Block stmt) {
+        Stmt block = super.visitBlockStmt(stmt);
+        return ((Stmt.Block) block).statements.isEmpty() ? null : block;
+    }
+
+    private static boolean isPure (Expr expression) {
+        // Subexpressions left to check, all of which must be pure, without recursing into deeply nested ones.
+        Deque<Expr> pending = new ArrayDeque<>();
+        pending.push(expression);
+        while (!pending.isEmpty()) {
+            Expr expr = pending.pop();
+            if (expr instanceof Expr.Literal) continue;
+            if (expr instanceof Expr.Grouping grouping) {
+                pending.push(grouping.expression);
+                continue;
+            }
+            // Truthiness and equality are defined for all values.
+            if (expr instanceof Expr.Unary unary && unary.operator.type == TokenType.BANG) {
+                pending.push(unary.right);
+                continue;
+            }
+            if (expr instanceof Expr.Binary binary
+                    && (binary.operator.type == TokenType.EQUAL_EQUAL || binary.operator.type == TokenType.BANG_EQUAL)) {
+                pending.push(binary.right);
+                pending.push(binary.left);
+                continue;
+            }
+            return false;
+        }
+        return true;
+    }
+}
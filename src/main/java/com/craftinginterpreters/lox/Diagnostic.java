@@ -0,0 +1,27 @@
+package com.craftinginterpreters.lox;
+
+/**
+ * An error reported while running a script, located by its line and, for syntax errors, by the token it was found at.
+ * Rendered like jlox has always printed errors.
+ *
+ * @param line the line of the error, or 0 for runtime errors about the whole execution, e.g. running out of fuel.
+ * @param where {@code " at 'token'"}, {@code " at end"} or empty.
+ */
+public record Diagnostic (Kind kind, int line, String where, String message) {
+    public enum Kind {
+        // Found while scanning or parsing, before running anything.
+        SYNTAX,
+        // Stopped the execution.
+        RUNTIME
+    }
+
+    static Diagnostic syntax (int line, String where, String message) {
+        return new Diagnostic(Kind.SYNTAX, line, where, message);
+    }
+
+    @Override
+    public String toString () {
+        if (kind == Kind.SYNTAX) return String.format("[line %d] Error %s: %s", line, where, message);
+        return line == 0 ? message : message + "\n[line " + line + "]";
+    }
+}
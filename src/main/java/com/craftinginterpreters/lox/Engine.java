@@ -0,0 +1,21 @@
+package com.craftinginterpreters.lox;
+
+import java.util.List;
+
+/**
+ * An execution backend for resolved Lox programs. Engines keep their global variables between calls, so that every
+ * line of the interactive prompt sees the definitions of the previous ones, and report runtime errors through
+ * {@link ErrorReporter#runtimeError(RuntimeError)}.
+ */
+public interface Engine {
+    void interpret (List<Stmt> statements);
+
+    /**
+     * Converts resolved statements to what the engine runs, deferring the work {@link #interpret(List)} would do
+     * with them. Engines running a representation of their own do not keep the statements, so that they can be
+     * collected while the program runs.
+     */
+    default Runnable prepare (List<Stmt> statements) {
+        return () -> interpret(statements);
+    }
+}
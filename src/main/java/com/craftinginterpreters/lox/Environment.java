@@ -5,7 +5,7 @@ import java.util.Map;
 
 public final class Environment {
     public final Environment enclosing;
-    private final Map<String, Object> values = new HashMap<>();
+    private final Map<Symbol, Object> values = new HashMap<>();
 
     public Environment () {
         this.enclosing = null;
@@ -16,8 +16,10 @@ public final class Environment {
     }
 
     public Object get (Token name) {
-        if (values.containsKey(name.lexeme)) {
-            return values.get(name.lexeme);
+        Object value = values.get(name.symbol());
+        // Only look for the key again when the value is nil.
+        if (value != null || values.containsKey(name.symbol())) {
+            return value;
         }
         if (enclosing != null) {
             return enclosing.get(name);
@@ -25,14 +27,14 @@ public final class Environment {
         throw new RuntimeError(name, String.format("Undefined variable '%s'.", name.lexeme));
     }
 
-    public void define (String name, Object value) {
+    public void define (Symbol name, Object value) {
         // Note: this allows variable re-definition since we do not check for existence!
         values.put(name, value);
     }
 
     public void assign(Token name, Object value) {
-        if (values.containsKey(name.lexeme)) {
-            values.put(name.lexeme, value);
+        if (values.containsKey(name.symbol())) {
+            values.put(name.symbol(), value);
             return;
         }
         if (enclosing != null) {
@@ -0,0 +1,143 @@
+package com.craftinginterpreters.lox;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.String.format;
+
+/**
+ * Collects the syntax and runtime errors of one {@link LoxContext} as {@link Diagnostic}s, and remembers whether there
+ * were any. A reporter tied to the output of a context holds its diagnostics until {@link #flush()}, rendering them in
+ * a single write; other reporters render every diagnostic as soon as it is reported.
+ */
+public class ErrorReporter {
+    private final PrintStream err;
+    // Flushed before rendering, so that errors follow what was printed before them.
+    private final OutputSink out;
+
+    private final List<Diagnostic> diagnostics = new ArrayList<>();
+    // Number of diagnostics rendered so far.
+    private int rendered = 0;
+    private int maxErrors = Integer.MAX_VALUE;
+    private int syntaxErrors = 0;
+    private boolean limitRendered = false;
+    private boolean hadError = false;
+    private boolean hadRuntimeError = false;
+
+    public ErrorReporter (PrintStream err) {
+        this(err, null);
+    }
+
+    public ErrorReporter (PrintStream err, OutputSink out) {
+        this.err = err;
+        this.out = out;
+    }
+
+    /**
+     * Drops the syntax errors following the first {@code maxErrors} ones, and stops parsing once they are reported.
+     */
+    public void maxErrors (int maxErrors) {
+        if (maxErrors < 1) throw new IllegalArgumentException("Error limit " + maxErrors + " below 1.");
+        this.maxErrors = maxErrors;
+    }
+
+    public void error (int line, String message) {
+        report(line, "", message);
+    }
+
+    public void error (Token token, String message) {
+        if (token.type == TokenType.EOF) {
+            report(token.line, " at end", message);
+        } else {
+            report(token.line, format(" at '%s'", token.lexeme), message);
+        }
+    }
+
+    void report (int line, String where, String message) {
+        hadError = true;
+        if (isFull()) return;
+        syntaxErrors++;
+        add(Diagnostic.syntax(line, where, message));
+
+        LoxEvents.SyntaxError event = new LoxEvents.SyntaxError();
+        if (event.shouldCommit()) {
+            event.line = line;
+            event.message = message;
+            event.commit();
+        }
+    }
+
+    public void runtimeError (RuntimeError error) {
+        // Only errors about the whole execution, e.g. running out of fuel, may not be located.
+        int line = error.token == null ? 0 : error.token.line;
+        hadRuntimeError = true;
+        add(new Diagnostic(Diagnostic.Kind.RUNTIME, line, "", error.getMessage()));
+
+        LoxEvents.RuntimeError event = new LoxEvents.RuntimeError();
+        if (event.shouldCommit()) {
+            event.line = line;
+            event.message = error.getMessage();
+            event.commit();
+        }
+    }
+
+    private void add (Diagnostic diagnostic) {
+        diagnostics.add(diagnostic);
+        if (out == null) flush();
+    }
+
+    /**
+     * Whether the error limit has been reached: the parser stops there.
+     */
+    boolean isFull () {
+        return syntaxErrors >= maxErrors;
+    }
+
+    /**
+     * Renders the diagnostics reported since the previous call, after flushing the output.
+     */
+    public void flush () {
+        if (rendered == diagnostics.size()) return;
+        StringBuilder text = new StringBuilder();
+        for (Diagnostic diagnostic : diagnostics.subList(rendered, diagnostics.size())) {
+            text.append(diagnostic).append(System.lineSeparator());
+        }
+        if (isFull() && !limitRendered) {
+            text.append(format("Error limit of %d reached.", maxErrors)).append(System.lineSeparator());
+            limitRendered = true;
+        }
+        rendered = diagnostics.size();
+
+        if (out != null) out.flush();
+        err.print(text);
+        err.flush();
+    }
+
+    /**
+     * The diagnostics reported since the last call to {@link #clearError()}.
+     */
+    public List<Diagnostic> diagnostics () {
+        return List.copyOf(diagnostics);
+    }
+
+    public boolean hadError () {
+        return hadError;
+    }
+
+    public boolean hadRuntimeError () {
+        return hadRuntimeError;
+    }
+
+    /**
+     * Forgets about past syntax errors and diagnostics, so that the next line typed at the prompt can be run.
+     */
+    public void clearError () {
+        flush();
+        diagnostics.clear();
+        rendered = 0;
+        syntaxErrors = 0;
+        limitRendered = false;
+        hadError = false;
+    }
+}
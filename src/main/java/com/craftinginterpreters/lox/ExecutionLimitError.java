@@ -0,0 +1,21 @@
+package com.craftinginterpreters.lox;
+
+/**
+ * A script exceeded its {@link Budget}: it ran out of fuel or time, or was cancelled. Reported like other runtime
+ * errors, at the line of the innermost node known to have one, if any.
+ */
+public final class ExecutionLimitError extends RuntimeError {
+    ExecutionLimitError (Token token, String message) {
+        super(token, message);
+    }
+
+    /**
+     * The same error at the line of the given node, if it is not located yet and the node has a line.
+     */
+    ExecutionLimitError at (Object node) {
+        if (token != null) return this;
+        int line = AstLines.line(node);
+        if (line < 0) return this;
+        return new ExecutionLimitError(new Token(TokenType.EOF, "", null, line), getMessage());
+    }
+}
@@ -25,6 +25,8 @@ abstract class Expr {
 
 		final Token name;
 		final Expr value;
+		int depth = -1;
+		int slot = -1;
 	}
 	static class Binary extends Expr {
 		Binary (Expr left, Token operator, Expr right) {
@@ -55,8 +57,9 @@ abstract class Expr {
 		final Expr expression;
 	}
 	static class Literal extends Expr {
-		Literal (Object value) {
+		Literal (Object value, int line) {
 			this.value = value;
+			this.line = line;
 		}
 
 		@Override
@@ -65,6 +68,7 @@ abstract class Expr {
 		}
 
 		final Object value;
+		final int line;
 	}
 	static class Unary extends Expr {
 		Unary (Token operator, Expr right) {
@@ -91,6 +95,8 @@ abstract class Expr {
 		}
 
 		final Token name;
+		int depth = -1;
+		int slot = -1;
 	}
 
 	 abstract <R> R accept(Visitor<R> visitor);
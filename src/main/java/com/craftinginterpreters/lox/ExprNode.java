@@ -0,0 +1,346 @@
+package com.craftinginterpreters.lox;
+
+import static com.craftinginterpreters.lox.LoxString.*;
+import static com.craftinginterpreters.lox.Values.*;
+
+/**
+ * Executable expression nodes. Binary and unary operators start out uninitialized, specialize themselves on the first
+ * operand types they see (e.g. a {@code +} on two numbers becomes a {@link DoubleAdd}) and rewrite themselves to the
+ * generic form, which handles every operand type, as soon as a specialization guard fails. This keeps the code path
+ * of every node monomorphic and type-stable for as long as the program allows it.
+ */
+abstract class ExprNode extends Node {
+    abstract Object execute (Frame frame);
+
+    static final class Constant extends ExprNode {
+        private final Object value;
+
+        Constant (Object value) {
+            this.value = value;
+        }
+
+        @Override
+        Object execute (Frame frame) {
+            return value;
+        }
+    }
+
+    static final class ReadGlobal extends ExprNode {
+        private final Environment globals;
+        private final Token name;
+
+        ReadGlobal (Environment globals, Token name) {
+            this.globals = globals;
+            this.name = name;
+        }
+
+        @Override
+        Object execute (Frame frame) {
+            return globals.get(name);
+        }
+    }
+
+    static final class ReadLocal extends ExprNode {
+        private final int depth;
+        private final int slot;
+
+        ReadLocal (int depth, int slot) {
+            this.depth = depth;
+            this.slot = slot;
+        }
+
+        @Override
+        Object execute (Frame frame) {
+            return frame.get(depth, slot);
+        }
+    }
+
+    static final class WriteGlobal extends ExprNode {
+        private final Environment globals;
+        private final Token name;
+        private ExprNode value;
+
+        WriteGlobal (Environment globals, Token name, ExprNode value) {
+            this.globals = globals;
+            this.name = name;
+            this.value = adopt(value);
+        }
+
+        @Override
+        Object execute (Frame frame) {
+            Object result = value.execute(frame);
+            globals.assign(name, result);
+            return result;
+        }
+
+        @Override
+        void replaceChild (Node child, Node replacement) {
+            value = (ExprNode) replacement;
+        }
+    }
+
+    static final class WriteLocal extends ExprNode {
+        private final int depth;
+        private final int slot;
+        private ExprNode value;
+
+        WriteLocal (int depth, int slot, ExprNode value) {
+            this.depth = depth;
+            this.slot = slot;
+            this.value = adopt(value);
+        }
+
+        @Override
+        Object execute (Frame frame) {
+            Object result = value.execute(frame);
+            frame.assign(depth, slot, result);
+            return result;
+        }
+
+        @Override
+        void replaceChild (Node child, Node replacement) {
+            value = (ExprNode) replacement;
+        }
+    }
+
+    /**
+     * Binary operators evaluate both operands before looking at their types. When a specialization guard fails, the
+     * already computed operand values are handed over to the replacement through {@link #apply(Object, Object)} so
+     * that no operand is evaluated twice.
+     */
+    abstract static class Binary extends ExprNode {
+        final Token operator;
+        ExprNode left;
+        ExprNode right;
+
+        Binary (Token operator, ExprNode left, ExprNode right) {
+            this.operator = operator;
+            this.left = adopt(left);
+            this.right = adopt(right);
+        }
+
+        @Override
+        final Object execute (Frame frame) {
+            Object leftValue = left.execute(frame);
+            Object rightValue = right.execute(frame);
+            return apply(leftValue, rightValue);
+        }
+
+        abstract Object apply (Object left, Object right);
+
+        @Override
+        final void replaceChild (Node child, Node replacement) {
+            if (left == child) left = (ExprNode) replacement;
+            if (right == child) right = (ExprNode) replacement;
+        }
+
+        final Object generalize (Object left, Object right) {
+            return replace(new GenericBinary(operator, this.left, this.right)).apply(left, right);
+        }
+    }
+
+    static final class UninitializedBinary extends Binary {
+        UninitializedBinary (Token operator, ExprNode left, ExprNode right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        Object apply (Object left, Object right) {
+            return replace(specialize(left, right)).apply(left, right);
+        }
+
+        private Binary specialize (Object left, Object right) {
+            if (left instanceof Double && right instanceof Double) {
+                return switch (operator.type) {
+                    case PLUS -> new DoubleAdd(operator, this.left, this.right);
+                    case MINUS -> new DoubleSubtract(operator, this.left, this.right);
+                    case STAR -> new DoubleMultiply(operator, this.left, this.right);
+                    case SLASH -> new DoubleDivide(operator, this.left, this.right);
+                    case GREATER -> new DoubleGreater(operator, this.left, this.right);
+                    case GREATER_EQUAL -> new DoubleGreaterEqual(operator, this.left, this.right);
+                    case LESS -> new DoubleLess(operator, this.left, this.right);
+                    case LESS_EQUAL -> new DoubleLessEqual(operator, this.left, this.right);
+                    default -> new GenericBinary(operator, this.left, this.right);
+                };
+            }
+            if (operator.type == TokenType.PLUS && isString(left) && isString(right)) {
+                return new StringConcat(operator, this.left, this.right);
+            }
+            return new GenericBinary(operator, this.left, this.right);
+        }
+    }
+
+    static final class GenericBinary extends Binary {
+        GenericBinary (Token operator, ExprNode left, ExprNode right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        Object apply (Object left, Object right) {
+            return binary(operator, left, right);
+        }
+    }
+
+    static final class StringConcat extends Binary {
+        StringConcat (Token operator, ExprNode left, ExprNode right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        Object apply (Object left, Object right) {
+            if (isString(left) && isString(right)) {
+                return concat((CharSequence) left, (CharSequence) right);
+            }
+            return generalize(left, right);
+        }
+    }
+
+    static final class DoubleAdd extends Binary {
+        DoubleAdd (Token operator, ExprNode left, ExprNode right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        Object apply (Object left, Object right) {
+            if (left instanceof Double a && right instanceof Double b) return a + b;
+            return generalize(left, right);
+        }
+    }
+
+    static final class DoubleSubtract extends Binary {
+        DoubleSubtract (Token operator, ExprNode left, ExprNode right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        Object apply (Object left, Object right) {
+            if (left instanceof Double a && right instanceof Double b) return a - b;
+            return generalize(left, right);
+        }
+    }
+
+    static final class DoubleMultiply extends Binary {
+        DoubleMultiply (Token operator, ExprNode left, ExprNode right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        Object apply (Object left, Object right) {
+            if (left instanceof Double a && right instanceof Double b) return a * b;
+            return generalize(left, right);
+        }
+    }
+
+    static final class DoubleDivide extends Binary {
+        DoubleDivide (Token operator, ExprNode left, ExprNode right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        Object apply (Object left, Object right) {
+            if (left instanceof Double a && right instanceof Double b) {
+                checkNonzeroDenominator(operator, b);
+                return a / b;
+            }
+            return generalize(left, right);
+        }
+    }
+
+    static final class DoubleGreater extends Binary {
+        DoubleGreater (Token operator, ExprNode left, ExprNode right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        Object apply (Object left, Object right) {
+            if (left instanceof Double a && right instanceof Double b) return a > b;
+            return generalize(left, right);
+        }
+    }
+
+    static final class DoubleGreaterEqual extends Binary {
+        DoubleGreaterEqual (Token operator, ExprNode left, ExprNode right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        Object apply (Object left, Object right) {
+            if (left instanceof Double a && right instanceof Double b) return a >= b;
+            return generalize(left, right);
+        }
+    }
+
+    static final class DoubleLess extends Binary {
+        DoubleLess (Token operator, ExprNode left, ExprNode right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        Object apply (Object left, Object right) {
+            if (left instanceof Double a && right instanceof Double b) return a < b;
+            return generalize(left, right);
+        }
+    }
+
+    static final class DoubleLessEqual extends Binary {
+        DoubleLessEqual (Token operator, ExprNode left, ExprNode right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        Object apply (Object left, Object right) {
+            if (left instanceof Double a && right instanceof Double b) return a <= b;
+            return generalize(left, right);
+        }
+    }
+
+    /**
+     * Negation starts out specialized for numbers, the only valid operand type, and only falls back to the generic
+     * form to report the type error.
+     */
+    static final class DoubleNegate extends ExprNode {
+        private final Token operator;
+        private ExprNode right;
+
+        DoubleNegate (Token operator, ExprNode right) {
+            this.operator = operator;
+            this.right = adopt(right);
+        }
+
+        @Override
+        Object execute (Frame frame) {
+            Object value = right.execute(frame);
+            if (value instanceof Double number) return -number;
+            return replace(new GenericUnary(operator, right)).apply(value);
+        }
+
+        @Override
+        void replaceChild (Node child, Node replacement) {
+            right = (ExprNode) replacement;
+        }
+    }
+
+    static final class GenericUnary extends ExprNode {
+        private final Token operator;
+        private ExprNode right;
+
+        GenericUnary (Token operator, ExprNode right) {
+            this.operator = operator;
+            this.right = adopt(right);
+        }
+
+        @Override
+        Object execute (Frame frame) {
+            return apply(right.execute(frame));
+        }
+
+        Object apply (Object value) {
+            return unary(operator, value);
+        }
+
+        @Override
+        void replaceChild (Node child, Node replacement) {
+            right = (ExprNode) replacement;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.craftinginterpreters.lox;
+
+/**
+ * Local variables of a block scope, stored in a fixed-size array. Slots are assigned statically by the
+ * {@link Resolver}: a variable access walks {@code depth} enclosing frames and then indexes the slot array.
+ */
+public final class Frame {
+    public final Frame enclosing;
+    private final Object[] slots;
+
+    public Frame (Frame enclosing, int size) {
+        this.enclosing = enclosing;
+        this.slots = new Object[size];
+    }
+
+    public Object get (int depth, int slot) {
+        return ancestor(depth).slots[slot];
+    }
+
+    public void define (int slot, Object value) {
+        slots[slot] = value;
+    }
+
+    public void assign (int depth, int slot, Object value) {
+        ancestor(depth).slots[slot] = value;
+    }
+
+    private Frame ancestor (int depth) {
+        Frame frame = this;
+        for (int i = 0; i < depth; i++) {
+            frame = frame.enclosing;
+        }
+        return frame;
+    }
+}
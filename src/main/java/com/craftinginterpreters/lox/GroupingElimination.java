@@ -0,0 +1,17 @@
+package com.craftinginterpreters.lox;
+
+/**
+ * Removes grouping nodes: the tree structure already encodes the precedence that parentheses expressed in the source.
+ */
+final class GroupingElimination extends AstTransformer {
+
+    @Override
+    public String name () {
+        return "grouping-elimination";
+    }
+
+    @Override
+    public Expr visitGroupingExpr(Expr.Grouping expr) {
+        return transform(expr.expression);
+    }
+}
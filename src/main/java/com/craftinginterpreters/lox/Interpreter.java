@@ -2,69 +2,67 @@ package com.craftinginterpreters.lox;
 
 import java.util.List;
 
-public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
+import static com.craftinginterpreters.lox.Values.*;
 
-    private Environment environment = new Environment();
+public class Interpreter implements Engine, Expr.Visitor<Object>, Stmt.Visitor<Void> {
 
+    private final OutputSink out;
+    private final ErrorReporter errors;
+    private final Environment globals = new Environment();
+    private Frame frame = null;
+
+    // Outcome of the last call to evaluateNumber: whether the expression produced a number, and its value otherwise.
+    private boolean isNumber;
+    private Object boxed;
+
+    public Interpreter () {
+        this(OutputSink.of(System.out), new ErrorReporter(System.err));
+    }
+
+    public Interpreter (OutputSink out, ErrorReporter errors) {
+        this.out = out;
+        this.errors = errors;
+    }
+
+    @Override
     public void interpret (List<Stmt> statements) {
         try {
             for (Stmt statement : statements) {
                 execute(statement);
             }
         } catch (RuntimeError error) {
-            Lox.runtimeError(error);
+            errors.runtimeError(error);
         }
     }
 
     @Override
     public Object visitBinaryExpr(Expr.Binary expr) {
-        Object left = evaluate(expr.left);
-        Object right = evaluate(expr.right);
-        return switch (expr.operator.type) {
-            case GREATER -> {
-                checkNumberOperands(expr.operator, left, right);
-                yield (double) left > (double) right;
-            }
-            case GREATER_EQUAL -> {
-                checkNumberOperands(expr.operator, left, right);
-                yield (double) left >= (double) right;
-            }
-            case LESS -> {
-                checkNumberOperands(expr.operator, left, right);
-                yield (double) left < (double) right;
+        switch (expr.operator.type) {
+            case MINUS, STAR, SLASH, PLUS -> {
+                // Nested arithmetic stays unboxed, only the final result is boxed.
+                double value = evaluateNumber(expr);
+                return isNumber ? (Object) value : boxed;
             }
-            case LESS_EQUAL -> {
-                checkNumberOperands(expr.operator, left, right);
-                yield (double) left <= (double) right;
-            }
-            case MINUS -> {
-                checkNumberOperands(expr.operator, left, right);
-                yield (double) left - (double) right;
-            }
-            case STAR -> {
-                checkNumberOperands(expr.operator, left, right);
-                yield (double) left * (double) right;
-            }
-            case SLASH -> {
-                checkNumberOperands(expr.operator, left, right);
-                checkNonzeroDenominator(expr.operator, (double) right);
-                yield (double) left / (double) right;
-            }
-            case PLUS -> {
-                // At least one of the operands is a string: either string concatenation, or stringify the non-string
-                // operand and concatenate it with the string operand
-                if (left instanceof String || right instanceof String) {
-                    yield stringify(left) + stringify(right);
-                }
-                if (left instanceof Double leftDouble && right instanceof Double rightDouble) {
-                    yield leftDouble + rightDouble;
+            case GREATER, GREATER_EQUAL, LESS, LESS_EQUAL -> {
+                double left = evaluateNumber(expr.left);
+                boolean leftIsNumber = isNumber;
+                double right = evaluateNumber(expr.right);
+                if (!leftIsNumber || !isNumber) {
+                    throw new RuntimeError(expr.operator, "Operands must be numbers.");
                 }
-                throw new RuntimeError(expr.operator, "Operands must be two numbers or two strings.");
+                return switch (expr.operator.type) {
+                    case GREATER -> left > right;
+                    case GREATER_EQUAL -> left >= right;
+                    case LESS -> left < right;
+                    default -> left <= right;
+                };
             }
-            case EQUAL -> isEqual(left, right);
-            case BANG_EQUAL -> !isEqual(left, right);
-            default -> null; // unreachable
-        };
+            default -> {
+                Object left = evaluate(expr.left);
+                Object right = evaluate(expr.right);
+                return binary(expr.operator, left, right);
+            }
+        }
     }
 
     @Override
@@ -79,27 +77,27 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
 
     @Override
     public Object visitUnaryExpr(Expr.Unary expr) {
+        if (expr.operator.type == TokenType.MINUS) {
+            return evaluateNumber(expr);
+        }
         Object right = evaluate(expr.right);
-
-        return switch (expr.operator.type) {
-            case MINUS -> {
-                checkNumberOperand(expr.operator, right);
-                yield -(double) right;
-            }
-            case BANG -> !isTruthy(right);
-            default -> null; // unreachable
-        };
+        return unary(expr.operator, right);
     }
 
     @Override
     public Object visitVariableExpr(Expr.Variable expr) {
-        return environment.get(expr.name);
+        if (expr.depth < 0) return globals.get(expr.name);
+        return frame.get(expr.depth, expr.slot);
     }
 
     @Override
     public Object visitAssignExpr(Expr.Assign expr) {
         Object value = evaluate(expr.value);
-        environment.assign(expr.name, value);
+        if (expr.depth < 0) {
+            globals.assign(expr.name, value);
+        } else {
+            frame.assign(expr.depth, expr.slot, value);
+        }
         return value;
     }
 
@@ -112,7 +110,7 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
     @Override
     public Void visitPrintStmt(Stmt.Print stmt) {
         Object value = evaluate(stmt.expression);
-        System.out.println(stringify(value));
+        print(out, value);
         return null;
     }
 
@@ -122,73 +120,108 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         if (stmt.initializer != null) {
             value = evaluate(stmt.initializer);
         }
-        environment.define(stmt.name.lexeme, value);
+        if (stmt.slot < 0) {
+            globals.define(stmt.name.symbol(), value);
+        } else {
+            frame.define(stmt.slot, value);
+        }
         return null;
     }
 
     @Override
     public Void visitBlockStmt(Stmt.Block stmt) {
-        executeBlock(stmt.statements, new Environment(environment));
+        // Blocks without declarations share the frame of the enclosing scope.
+        if (stmt.slots == 0) {
+            for (Stmt statement : stmt.statements) {
+                execute(statement);
+            }
+            return null;
+        }
+        executeBlock(stmt.statements, new Frame(frame, stmt.slots));
         return null;
     }
 
-    private void execute (Stmt statement) {
+    protected void execute (Stmt statement) {
         statement.accept(this);
     }
 
-    private void executeBlock(List<Stmt> statements, Environment environment) {
-        Environment previous = this.environment;
+    private void executeBlock(List<Stmt> statements, Frame frame) {
+        Frame previous = this.frame;
         try {
-            this.environment = environment;
+            this.frame = frame;
             for (Stmt statement : statements) {
                 execute(statement);
             }
         } finally {
-            this.environment = previous;
+            this.frame = previous;
         }
     }
 
-    private Object evaluate(Expr expression) {
+    protected Object evaluate(Expr expression) {
         return expression.accept(this);
     }
 
-    private String stringify(Object object) {
-        if (object == null) return "nil";
-        if (object instanceof Double) {
-            String text = object.toString();
-            if (text.endsWith(".0")) {
-                text = text.substring(0, text.length() - 2);
+    /**
+     * Evaluates an expression expected to produce a number without boxing intermediate results. If the expression
+     * produces something else, {@link #isNumber} is cleared and the value is stored in {@link #boxed}: the caller
+     * decides on the error to report once all of its operands are evaluated.
+     */
+    protected double evaluateNumber(Expr expression) {
+        if (expression instanceof Expr.Literal literal) {
+            return unbox(literal.value);
+        }
+        if (expression instanceof Expr.Grouping grouping) {
+            return evaluateNumber(grouping.expression);
+        }
+        if (expression instanceof Expr.Unary unary && unary.operator.type == TokenType.MINUS) {
+            double right = evaluateNumber(unary.right);
+            if (!isNumber) {
+                throw new RuntimeError(unary.operator, "Operand must be a number.");
             }
-            return text;
+            return -right;
         }
-        return object.toString();
-    }
-
-    private boolean isEqual(Object left, Object right) {
-        // Basically same as Java but make sure to avoid NPE when calling Object#equals on left.
-        if (left == null && right == null) return true;
-        if (left == null) return false;
-        return left.equals(right);
-    }
-
-    private boolean isTruthy(Object object) {
-        if (object == null) return false;
-        if (object instanceof Boolean booleanObject) return booleanObject;
-        return true;
-    }
-
-    private void checkNumberOperands(Token operator, Object left, Object right) {
-        if (left instanceof Double && right instanceof Double) return;
-        throw new RuntimeError(operator, "Operands must be numbers.");
+        if (expression instanceof Expr.Binary binary && isArithmetic(binary.operator.type)) {
+            return evaluateArithmetic(binary);
+        }
+        return unbox(evaluate(expression));
+    }
+
+    private double evaluateArithmetic(Expr.Binary expr) {
+        double left = evaluateNumber(expr.left);
+        boolean leftIsNumber = isNumber;
+        Object leftBoxed = boxed;
+        double right = evaluateNumber(expr.right);
+
+        if (leftIsNumber && isNumber) {
+            return switch (expr.operator.type) {
+                case MINUS -> left - right;
+                case STAR -> left * right;
+                case SLASH -> {
+                    checkNonzeroDenominator(expr.operator, right);
+                    yield left / right;
+                }
+                default -> left + right;
+            };
+        }
+        if (expr.operator.type == TokenType.PLUS) {
+            Object leftValue = leftIsNumber ? (Object) left : leftBoxed;
+            Object rightValue = isNumber ? (Object) right : boxed;
+            return unbox(add(expr.operator, leftValue, rightValue));
+        }
+        throw new RuntimeError(expr.operator, "Operands must be numbers.");
     }
 
-    private void checkNumberOperand(Token operator, Object operand) {
-        if (operand instanceof Double) return;
-        throw new RuntimeError(operator, "Operand must be a number.");
+    private static boolean isArithmetic(TokenType type) {
+        return type == TokenType.MINUS || type == TokenType.STAR || type == TokenType.SLASH || type == TokenType.PLUS;
     }
 
-    private void checkNonzeroDenominator(Token operator, double denominator) {
-        if (denominator != 0) return;
-        throw new RuntimeError(operator, "Denominator must be non-zero.");
+    private double unbox(Object value) {
+        if (value instanceof Double number) {
+            isNumber = true;
+            return number;
+        }
+        isNumber = false;
+        boxed = value;
+        return 0;
     }
 }
@@ -0,0 +1,554 @@
+package com.craftinginterpreters.lox;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles resolved statements to JVM bytecode, defined as hidden classes of static methods that the JIT compiler
+ * then optimizes like any Java code. Top-level statements are grouped into methods small enough for HotSpot to
+ * compile, and methods into classes whose constant pool cannot overflow. Every method takes the constants that cannot
+ * be loaded from the pool, the globals and the output, and is returned bound to its constants.
+ *
+ * <p>Without functions nor closures, every block local is known statically and lives in a JVM local variable: the
+ * resolver's (depth, slot) pair becomes a local index by adding the base of the block at that depth. Expressions that
+ * can only produce numbers, such as number literals, negations and arithmetic on them, stay unboxed {@code double}s.
+ * Anything that could fail or branch calls {@link JvmRuntime}, so that the generated code is straight-line.
+ */
+final class JvmCompiler {
+    static final MethodType TYPE = MethodType.methodType(void.class, Environment.class, OutputSink.class);
+
+    private static final String CLASS = "com/craftinginterpreters/lox/Program";
+    private static final String RUNTIME = "com/craftinginterpreters/lox/JvmRuntime";
+    private static final String OBJECT = "Ljava/lang/Object;";
+    private static final String ENVIRONMENT = "Lcom/craftinginterpreters/lox/Environment;";
+    private static final String OUTPUT = "Lcom/craftinginterpreters/lox/OutputSink;";
+    private static final String TOKEN = "Lcom/craftinginterpreters/lox/Token;";
+    private static final String DESCRIPTOR = "([Ljava/lang/Object;" + ENVIRONMENT + OUTPUT + ")V";
+    // Locals holding the parameters, the block locals following them.
+    private static final int CONSTANTS = 0;
+    private static final int GLOBALS = 1;
+    private static final int OUT = 2;
+    private static final int FIRST_LOCAL = 3;
+
+    // HotSpot does not compile larger methods.
+    private static final int MAX_METHOD_LENGTH = 8000;
+    // Leaves room for the return instruction.
+    private static final int MAX_CODE_LENGTH = 0xFFFF - 1;
+    private static final int MAX_LOCALS = 0xFFFF;
+    private static final int MAX_POOL_COUNT = 0xFFFF;
+    // A statement within the code length limit adds fewer entries than the room left past this count.
+    private static final int POOL_COUNT_LIMIT = 1 << 14;
+    // Longer strings may not fit a constant pool entry.
+    private static final int MAX_POOL_STRING = 0xFFFF / 3;
+
+    private static final int ACONST_NULL = 0x01;
+    private static final int ICONST_0 = 0x03;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int LDC = 0x12;
+    private static final int LDC_W = 0x13;
+    private static final int LDC2_W = 0x14;
+    private static final int ALOAD = 0x19;
+    private static final int AALOAD = 0x32;
+    private static final int ASTORE = 0x3a;
+    private static final int POP = 0x57;
+    private static final int POP2 = 0x58;
+    private static final int DUP = 0x59;
+    private static final int DUP_X2 = 0x5b;
+    private static final int SWAP = 0x5f;
+    private static final int DADD = 0x63;
+    private static final int DSUB = 0x67;
+    private static final int DMUL = 0x6b;
+    private static final int DNEG = 0x77;
+    private static final int RETURN = 0xb1;
+    private static final int GETSTATIC = 0xb2;
+    private static final int INVOKESTATIC = 0xb8;
+    private static final int CHECKCAST = 0xc0;
+    private static final int WIDE = 0xc4;
+
+    private final MethodHandles.Lookup lookup = MethodHandles.lookup();
+    private final MethodHandle fallback;
+    private final List<MethodHandle> methods = new ArrayList<>();
+
+    // The class being written, the constants its methods load from their first parameter, its methods and the
+    // statements compiled into them so far.
+    private ClassFileWriter writer = null;
+    private final List<Object> constants = new ArrayList<>();
+    private final Map<Object, Integer> constantIndices = new HashMap<>();
+    private final List<String> methodNames = new ArrayList<>();
+    private final List<Stmt> classStatements = new ArrayList<>();
+    // Pool index of the method of every call made by the class so far, zero for the others.
+    private final int[] calls = new int[Call.values().length];
+    // The method being written and the number of statements in it.
+    private ClassFileWriter.Code code = null;
+    private int methodStatements = 0;
+
+    // Local index of the first local of every enclosing block that has locals, innermost last.
+    private final List<Integer> blockBases = new ArrayList<>();
+    private int locals = FIRST_LOCAL;
+    // Line of the statement or operator being compiled.
+    private int line = 0;
+
+    /**
+     * A compiler leaving the top-level statements too large for a method to the interpreter, which must define its
+     * globals in the environment the compiled methods are called with.
+     */
+    JvmCompiler (StackInterpreter interpreter) {
+        try {
+            MethodHandle execute = lookup.findVirtual(StackInterpreter.class, "execute",
+                    MethodType.methodType(void.class, Stmt.class));
+            fallback = execute.bindTo(interpreter);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Compiles the statements to methods to call in order. A statement that does not fit a method, such as an
+     * expression of many thousands of operators, runs on the interpreter instead: block locals never outlive their
+     * top-level statement, so only the globals are shared with the compiled code.
+     */
+    List<MethodHandle> compile (List<Stmt> statements) {
+        for (Stmt statement : statements) {
+            if (add(statement)) {
+                if (writer.poolCount() > POOL_COUNT_LIMIT) finishClass();
+                continue;
+            }
+            // Compile the statements before it again, without the pool entries it left.
+            List<Stmt> previous = List.copyOf(classStatements);
+            writer = null;
+            code = null;
+            for (Stmt compiled : previous) {
+                add(compiled);
+            }
+            if (writer != null) finishClass();
+            MethodHandle interpreted = MethodHandles.insertArguments(fallback, 0, statement);
+            methods.add(MethodHandles.dropArguments(interpreted, 0, TYPE.parameterList()));
+        }
+        if (writer != null) finishClass();
+        return methods;
+    }
+
+    /**
+     * Compiles a statement into the current method, or the next one if it would make the current one too large for
+     * HotSpot, and tells whether it fits.
+     */
+    private boolean add (Stmt statement) {
+        if (writer == null) startClass();
+        if (code == null) startMethod();
+        int start = code.length();
+        compile(statement);
+        if (code.length() > MAX_METHOD_LENGTH && methodStatements > 0) {
+            // Move the statement to a method of its own.
+            code.truncate(start);
+            finishMethod();
+            startMethod();
+            compile(statement);
+        }
+        if (code.length() > MAX_CODE_LENGTH || code.maxLocals() > MAX_LOCALS
+                || writer.poolCount() > MAX_POOL_COUNT) {
+            return false;
+        }
+        methodStatements++;
+        classStatements.add(statement);
+        return true;
+    }
+
+    private void startClass () {
+        writer = new ClassFileWriter(CLASS);
+        constants.clear();
+        constantIndices.clear();
+        methodNames.clear();
+        classStatements.clear();
+        Arrays.fill(calls, 0);
+    }
+
+    private void startMethod () {
+        code = new ClassFileWriter.Code();
+        code.useLocals(FIRST_LOCAL);
+        methodStatements = 0;
+    }
+
+    private void finishMethod () {
+        code.op(RETURN, 0);
+        String name = "run" + methodNames.size();
+        writer.addMethod(name, DESCRIPTOR, code);
+        methodNames.add(name);
+        code = null;
+    }
+
+    private void finishClass () {
+        if (code != null) finishMethod();
+        try {
+            MethodHandles.Lookup program = lookup.defineHiddenClass(writer.toByteArray(), true);
+            MethodType type = TYPE.insertParameterTypes(0, Object[].class);
+            Object[] values = constants.toArray();
+            for (String name : methodNames) {
+                MethodHandle method = program.findStatic(program.lookupClass(), name, type);
+                methods.add(MethodHandles.insertArguments(method, 0, new Object[] {values}));
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Generated an invalid class.", e);
+        }
+        writer = null;
+    }
+
+    private void compile (Stmt statement) {
+        if (statement instanceof Stmt.Expression expression) {
+            boolean number = compile(expression.expression);
+            code.op(number ? POP2 : POP, number ? -2 : -1);
+        } else if (statement instanceof Stmt.Print print) {
+            load(OUT);
+            if (compile(print.expression)) {
+                invoke(Call.PRINT_NUMBER);
+            } else {
+                invoke(Call.PRINT);
+            }
+        } else if (statement instanceof Stmt.Var var) {
+            line = var.name.line;
+            if (var.initializer != null) {
+                compileObject(var.initializer);
+            } else {
+                code.op(ACONST_NULL, 1);
+            }
+            if (var.slot < 0) {
+                load(GLOBALS);
+                loadName(var.name);
+                invoke(Call.DEFINE);
+            } else {
+                store(local(0, var.slot));
+            }
+        } else if (statement instanceof Stmt.Block block) {
+            // Blocks without declarations share the locals of the enclosing scope.
+            if (block.slots == 0) {
+                for (Stmt inner : block.statements) {
+                    compile(inner);
+                }
+                return;
+            }
+            blockBases.add(locals);
+            locals += block.slots;
+            code.useLocals(locals);
+            // The locals of a previous block may be reused: they start as nil.
+            for (int slot = 0; slot < block.slots; slot++) {
+                code.op(ACONST_NULL, 1);
+                store(local(0, slot));
+            }
+            for (Stmt inner : block.statements) {
+                compile(inner);
+            }
+            locals -= block.slots;
+            blockBases.remove(blockBases.size() - 1);
+        }
+    }
+
+    /**
+     * Compiles an expression, leaving a {@code double} on the stack if it can only produce a number, and an object
+     * otherwise.
+     *
+     * @return whether the value is a {@code double}.
+     */
+    private boolean compile (Expr expression) {
+        if (expression instanceof Expr.Literal literal) {
+            return compileLiteral(literal.value);
+        }
+        if (expression instanceof Expr.Grouping grouping) {
+            return compile(grouping.expression);
+        }
+        if (expression instanceof Expr.Variable variable) {
+            line = variable.name.line;
+            if (variable.depth < 0) {
+                load(GLOBALS);
+                loadName(variable.name);
+                pushInt(line);
+                invoke(Call.GET);
+            } else {
+                load(local(variable.depth, variable.slot));
+            }
+            return false;
+        }
+        if (expression instanceof Expr.Assign assign) {
+            compileObject(assign.value);
+            line = assign.name.line;
+            if (assign.depth < 0) {
+                load(GLOBALS);
+                loadName(assign.name);
+                pushInt(line);
+                invoke(Call.ASSIGN);
+            } else {
+                code.op(DUP, 1);
+                store(local(assign.depth, assign.slot));
+            }
+            return false;
+        }
+        if (expression instanceof Expr.Unary unary) {
+            if (unary.operator.type == TokenType.MINUS) {
+                if (compile(unary.right)) {
+                    code.op(DNEG, 0);
+                } else {
+                    pushInt(unary.operator.line);
+                    invoke(Call.NEGATE);
+                }
+                return true;
+            }
+            compileObject(unary.right);
+            invoke(Call.NOT);
+            return false;
+        }
+        return compileBinary((Expr.Binary) expression);
+    }
+
+    private boolean compileBinary (Expr.Binary binary) {
+        TokenType type = binary.operator.type;
+        int line = binary.operator.line;
+        // Operands of arithmetic and comparisons stay unboxed if both of them can.
+        boolean numbers = false;
+        switch (type) {
+            case MINUS, STAR, SLASH, PLUS, GREATER, GREATER_EQUAL, LESS, LESS_EQUAL -> {
+                boolean left = compile(binary.left);
+                boolean right = compile(binary.right);
+                numbers = left && right;
+                if (left && !right) {
+                    // Box the left operand under the right one.
+                    code.op(DUP_X2, 1);
+                    code.op(POP, -1);
+                    invoke(Call.BOX);
+                    code.op(SWAP, 0);
+                } else if (right && !left) {
+                    invoke(Call.BOX);
+                }
+            }
+            default -> {
+                compileObject(binary.left);
+                compileObject(binary.right);
+            }
+        }
+        this.line = line;
+
+        switch (type) {
+            case MINUS, STAR, SLASH -> {
+                if (!numbers) {
+                    pushInt(line);
+                    invoke(switch (type) {
+                        case MINUS -> Call.SUBTRACT;
+                        case STAR -> Call.MULTIPLY;
+                        default -> Call.DIVIDE;
+                    });
+                } else if (type == TokenType.SLASH) {
+                    pushInt(line);
+                    invoke(Call.DIVIDE_NUMBERS);
+                } else {
+                    code.op(type == TokenType.MINUS ? DSUB : DMUL, -2);
+                }
+                return true;
+            }
+            case PLUS -> {
+                if (numbers) {
+                    code.op(DADD, -2);
+                    return true;
+                }
+                pushInt(line);
+                invoke(Call.ADD);
+            }
+            case GREATER, GREATER_EQUAL, LESS, LESS_EQUAL -> {
+                if (numbers) {
+                    invoke(switch (type) {
+                        case GREATER -> Call.GREATER_NUMBERS;
+                        case GREATER_EQUAL -> Call.GREATER_EQUAL_NUMBERS;
+                        case LESS -> Call.LESS_NUMBERS;
+                        default -> Call.LESS_EQUAL_NUMBERS;
+                    });
+                } else {
+                    pushInt(line);
+                    invoke(switch (type) {
+                        case GREATER -> Call.GREATER;
+                        case GREATER_EQUAL -> Call.GREATER_EQUAL;
+                        case LESS -> Call.LESS;
+                        default -> Call.LESS_EQUAL;
+                    });
+                }
+            }
+            case BANG_EQUAL -> invoke(Call.NOT_EQUAL);
+            default -> {
+                pushInt(type.ordinal());
+                pushInt(line);
+                invoke(Call.BINARY);
+            }
+        }
+        return false;
+    }
+
+    private void compileObject (Expr expression) {
+        if (compile(expression)) {
+            invoke(Call.BOX);
+        }
+    }
+
+    private boolean compileLiteral (Object value) {
+        if (value == null) {
+            code.op(ACONST_NULL, 1);
+        } else if (value instanceof Boolean bool) {
+            code.opShort(GETSTATIC, writer.fieldRef("java/lang/Boolean", bool ? "TRUE" : "FALSE",
+                "Ljava/lang/Boolean;"), 1);
+        } else if (value instanceof Double number) {
+            code.opShort(LDC2_W, writer.doubleConstant(number), 2);
+            return true;
+        } else if (value instanceof String string && string.length() <= MAX_POOL_STRING) {
+            ldc(writer.string(string));
+        } else {
+            loadConstant(value);
+        }
+        return false;
+    }
+
+    /**
+     * Loads the name token of a global variable from the constants, sharing one slot between all the tokens with the
+     * same lexeme: its line is meaningless, the runtime is given the line of the access instead.
+     */
+    private void loadName (Token name) {
+        loadConstant(name.symbol(), name);
+        code.opShort(CHECKCAST, writer.classRef("com/craftinginterpreters/lox/Token"), 0);
+    }
+
+    private void loadConstant (Object value) {
+        loadConstant(value, value);
+    }
+
+    private void loadConstant (Object key, Object value) {
+        Integer index = constantIndices.get(key);
+        if (index == null) {
+            index = constants.size();
+            constants.add(value);
+            constantIndices.put(key, index);
+        }
+        load(CONSTANTS);
+        pushInt(index);
+        code.op(AALOAD, -1);
+    }
+
+    private int local (int depth, int slot) {
+        return blockBases.get(blockBases.size() - 1 - depth) + slot;
+    }
+
+    private void load (int local) {
+        if (local <= 3) {
+            // aload_0 to aload_3.
+            code.op(0x2a + local, 1);
+        } else if (local <= 0xFF) {
+            code.opByte(ALOAD, local, 1);
+        } else {
+            code.op(WIDE, 0);
+            code.opShort(ALOAD, local, 1);
+        }
+    }
+
+    private void store (int local) {
+        if (local <= 3) {
+            // astore_0 to astore_3.
+            code.op(0x4b + local, -1);
+        } else if (local <= 0xFF) {
+            code.opByte(ASTORE, local, -1);
+        } else {
+            code.op(WIDE, 0);
+            code.opShort(ASTORE, local, -1);
+        }
+    }
+
+    private void pushInt (int value) {
+        if (value >= -1 && value <= 5) {
+            code.op(ICONST_0 + value, 1);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            code.opByte(BIPUSH, value, 1);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            code.opShort(SIPUSH, value, 1);
+        } else {
+            ldc(writer.integer(value));
+        }
+    }
+
+    private void ldc (int index) {
+        if (index <= 0xFF) {
+            code.opByte(LDC, index, 1);
+        } else {
+            code.opShort(LDC_W, index, 1);
+        }
+    }
+
+    private void invoke (Call call) {
+        // Every call is made many times per class, its pool entry is looked up once.
+        int index = calls[call.ordinal()];
+        if (index == 0) {
+            index = writer.methodRef(call.owner, call.name, call.descriptor);
+            calls[call.ordinal()] = index;
+        }
+        code.opShort(INVOKESTATIC, index, call.stackEffect);
+    }
+
+    /**
+     * The static methods generated code calls.
+     */
+    private enum Call {
+        GET(RUNTIME, "get", "(" + ENVIRONMENT + TOKEN + "I)" + OBJECT),
+        ASSIGN(RUNTIME, "assign", "(" + OBJECT + ENVIRONMENT + TOKEN + "I)" + OBJECT),
+        DEFINE(RUNTIME, "define", "(" + OBJECT + ENVIRONMENT + TOKEN + ")V"),
+        PRINT("com/craftinginterpreters/lox/Values", "print", "(" + OUTPUT + OBJECT + ")V"),
+        PRINT_NUMBER(RUNTIME, "print", "(" + OUTPUT + "D)V"),
+        NEGATE(RUNTIME, "negate", "(" + OBJECT + "I)D"),
+        NOT(RUNTIME, "not", "(" + OBJECT + ")" + OBJECT),
+        SUBTRACT(RUNTIME, "subtract", "(" + OBJECT + OBJECT + "I)D"),
+        MULTIPLY(RUNTIME, "multiply", "(" + OBJECT + OBJECT + "I)D"),
+        DIVIDE(RUNTIME, "divide", "(" + OBJECT + OBJECT + "I)D"),
+        DIVIDE_NUMBERS(RUNTIME, "divide", "(DDI)D"),
+        ADD(RUNTIME, "add", "(" + OBJECT + OBJECT + "I)" + OBJECT),
+        GREATER(RUNTIME, "greater", "(" + OBJECT + OBJECT + "I)" + OBJECT),
+        GREATER_EQUAL(RUNTIME, "greaterEqual", "(" + OBJECT + OBJECT + "I)" + OBJECT),
+        LESS(RUNTIME, "less", "(" + OBJECT + OBJECT + "I)" + OBJECT),
+        LESS_EQUAL(RUNTIME, "lessEqual", "(" + OBJECT + OBJECT + "I)" + OBJECT),
+        GREATER_NUMBERS(RUNTIME, "greater", "(DD)" + OBJECT),
+        GREATER_EQUAL_NUMBERS(RUNTIME, "greaterEqual", "(DD)" + OBJECT),
+        LESS_NUMBERS(RUNTIME, "less", "(DD)" + OBJECT),
+        LESS_EQUAL_NUMBERS(RUNTIME, "lessEqual", "(DD)" + OBJECT),
+        NOT_EQUAL(RUNTIME, "notEqual", "(" + OBJECT + OBJECT + ")" + OBJECT),
+        BINARY(RUNTIME, "binary", "(" + OBJECT + OBJECT + "II)" + OBJECT),
+        BOX("java/lang/Double", "valueOf", "(D)Ljava/lang/Double;");
+
+        final String owner;
+        final String name;
+        final String descriptor;
+        // Slots pushed minus slots popped.
+        final int stackEffect;
+
+        Call (String owner, String name, String descriptor) {
+            this.owner = owner;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.stackEffect = slots(descriptor.substring(descriptor.indexOf(')') + 1))
+                - slots(descriptor.substring(1, descriptor.indexOf(')')));
+        }
+
+        /**
+         * Stack slots taken by a sequence of types: two for doubles and one for the others, void aside.
+         */
+        private static int slots (String types) {
+            int slots = 0;
+            for (int i = 0; i < types.length(); i++) {
+                switch (types.charAt(i)) {
+                    case 'D' -> slots += 2;
+                    case 'V' -> {}
+                    case 'L' -> {
+                        slots++;
+                        i = types.indexOf(';', i);
+                    }
+                    default -> slots++;
+                }
+            }
+            return slots;
+        }
+    }
+}
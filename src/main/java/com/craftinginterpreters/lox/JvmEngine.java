@@ -0,0 +1,44 @@
+package com.craftinginterpreters.lox;
+
+import java.lang.invoke.MethodHandle;
+import java.util.List;
+
+/**
+ * Engine compiling programs to JVM bytecode with the {@link JvmCompiler}, so that HotSpot optimizes Lox code as it
+ * does Java code. Results and runtime errors are the same as the ones of the {@link Interpreter}. Top-level statements
+ * too large to compile run on a {@link StackInterpreter} sharing the globals.
+ */
+public final class JvmEngine implements Engine {
+    private final OutputSink out;
+    private final ErrorReporter errors;
+    private final Environment globals = new Environment();
+    private final StackInterpreter fallback;
+
+    public JvmEngine () {
+        this(OutputSink.of(System.out), new ErrorReporter(System.err));
+    }
+
+    public JvmEngine (OutputSink out, ErrorReporter errors) {
+        this.out = out;
+        this.errors = errors;
+        this.fallback = new StackInterpreter(out, errors, globals);
+    }
+
+    @Override
+    public void interpret (List<Stmt> statements) {
+        List<MethodHandle> program = new JvmCompiler(fallback).compile(statements);
+
+        try {
+            for (MethodHandle method : program) {
+                method.invokeExact(globals, out);
+            }
+        } catch (RuntimeError error) {
+            errors.runtimeError(error);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            // Generated code throws no checked exceptions.
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.craftinginterpreters.lox;
+
+import static com.craftinginterpreters.lox.Values.*;
+
+/**
+ * Operations the classes generated by the {@link JvmCompiler} call, for everything that may fail or branch. They are
+ * small enough to be inlined by the JIT compiler. Operators take the line of their token, and only build a token to
+ * report an error, with the same message as the {@link Interpreter}.
+ */
+final class JvmRuntime {
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private JvmRuntime () {}
+
+    static Object get (Environment globals, Token name, int line) {
+        try {
+            return globals.get(name);
+        } catch (RuntimeError error) {
+            throw atLine(error, line);
+        }
+    }
+
+    static Object assign (Object value, Environment globals, Token name, int line) {
+        try {
+            globals.assign(name, value);
+        } catch (RuntimeError error) {
+            throw atLine(error, line);
+        }
+        return value;
+    }
+
+    static void define (Object value, Environment globals, Token name) {
+        globals.define(name.symbol(), value);
+    }
+
+    static void print (OutputSink out, double value) {
+        out.println(value);
+    }
+
+    static double negate (Object operand, int line) {
+        if (operand instanceof Double number) return -number;
+        throw new RuntimeError(token(TokenType.MINUS, line), "Operand must be a number.");
+    }
+
+    static Object not (Object operand) {
+        return !isTruthy(operand);
+    }
+
+    static double subtract (Object left, Object right, int line) {
+        if (left instanceof Double a && right instanceof Double b) return a - b;
+        throw new RuntimeError(token(TokenType.MINUS, line), "Operands must be numbers.");
+    }
+
+    static double multiply (Object left, Object right, int line) {
+        if (left instanceof Double a && right instanceof Double b) return a * b;
+        throw new RuntimeError(token(TokenType.STAR, line), "Operands must be numbers.");
+    }
+
+    static double divide (Object left, Object right, int line) {
+        if (left instanceof Double a && right instanceof Double b) return divide((double) a, (double) b, line);
+        throw new RuntimeError(token(TokenType.SLASH, line), "Operands must be numbers.");
+    }
+
+    static double divide (double left, double right, int line) {
+        if (right == 0) checkNonzeroDenominator(token(TokenType.SLASH, line), right);
+        return left / right;
+    }
+
+    static Object add (Object left, Object right, int line) {
+        return Values.add(token(TokenType.PLUS, line), left, right);
+    }
+
+    static Object greater (double left, double right) {
+        return left > right;
+    }
+
+    static Object greaterEqual (double left, double right) {
+        return left >= right;
+    }
+
+    static Object less (double left, double right) {
+        return left < right;
+    }
+
+    static Object lessEqual (double left, double right) {
+        return left <= right;
+    }
+
+    static Object greater (Object left, Object right, int line) {
+        return greater(number(left, right, line), (double) right);
+    }
+
+    static Object greaterEqual (Object left, Object right, int line) {
+        return greaterEqual(number(left, right, line), (double) right);
+    }
+
+    static Object less (Object left, Object right, int line) {
+        return less(number(left, right, line), (double) right);
+    }
+
+    static Object lessEqual (Object left, Object right, int line) {
+        return lessEqual(number(left, right, line), (double) right);
+    }
+
+    /**
+     * The left operand of a comparison, once both are known to be numbers.
+     */
+    private static double number (Object left, Object right, int line) {
+        if (left instanceof Double a && right instanceof Double) return a;
+        // The operator only matters for its line.
+        throw new RuntimeError(token(TokenType.LESS, line), "Operands must be numbers.");
+    }
+
+    static Object notEqual (Object left, Object right) {
+        return !isEqual(left, right);
+    }
+
+    /**
+     * Any other binary operator, given by the ordinal of its token type.
+     */
+    static Object binary (Object left, Object right, int operator, int line) {
+        return Values.binary(token(TYPES[operator], line), left, right);
+    }
+
+    private static Token token (TokenType type, int line) {
+        return new Token(type, "", null, line);
+    }
+
+    private static RuntimeError atLine (RuntimeError error, int line) {
+        Token token = new Token(error.token.type, error.token.lexeme, error.token.literal, line);
+        return new RuntimeError(token, error.getMessage());
+    }
+}
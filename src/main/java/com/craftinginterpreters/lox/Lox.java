@@ -3,84 +3,232 @@ package com.craftinginterpreters.lox;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 import static com.craftinginterpreters.shared.ErrorCode.*;
-import static java.lang.String.format;
 
 public final class Lox {
-    private static final Interpreter interpreter = new Interpreter();
-
-    static boolean hadError = false;
-    static boolean hadRuntimeError = false;
-
-    public static void main (String... args) throws IOException {
-        if (args.length > 1) {
-            System.out.println("Usage: jlox [script]");
-            System.exit(EX_USAGE);
-        } else if (args.length == 1) {
-            runFile(args[0]);
+    private static Consumer<LoxContext> configuration = context -> {};
+    private static OutputSink output = OutputSink.buffered(System.out, Charset.defaultCharset());
+    // The file given with --output, opened once every option is checked so that a usage error leaves it untouched.
+    private static Path outputPath = null;
+    private static FileChannel outputChannel = null;
+    private static boolean stream = false;
+    private static boolean engineSelected = false;
+    private static Profile profile = null;
+    // Where to write the collapsed stacks of the profile, if anywhere.
+    private static Path profileStacks = null;
+    private static Budget budget = null;
+
+    public static void main (String... args) throws IOException, InterruptedException {
+        List<String> scripts = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--engine=")) {
+                String name = arg.substring("--engine=".length());
+                configure(context -> context.engine(name));
+                engineSelected = true;
+            } else if (arg.startsWith("--optimize=")) {
+                for (String pass : arg.substring("--optimize=".length()).split(",")) {
+                    configure(context -> context.optimize(pass));
+                }
+            } else if (arg.equals("--cache")) {
+                ProgramCache cache = new ProgramCache(ProgramCache.defaultDirectory());
+                configure(context -> context.cache(cache));
+            } else if (arg.startsWith("--cache=")) {
+                ProgramCache cache = new ProgramCache(Paths.get(arg.substring("--cache=".length())));
+                configure(context -> context.cache(cache));
+            } else if (arg.startsWith("--output=")) {
+                outputPath = Paths.get(arg.substring("--output=".length()));
+            } else if (arg.equals("--profile")) {
+                profile = new Profile();
+            } else if (arg.startsWith("--profile=")) {
+                profile = new Profile();
+                profileStacks = Paths.get(arg.substring("--profile=".length()));
+            } else if (arg.startsWith("--fuel=")) {
+                budget().fuel(count(arg.substring("--fuel=".length())));
+            } else if (arg.startsWith("--timeout=")) {
+                budget().timeout(Duration.ofMillis(count(arg.substring("--timeout=".length()))));
+            } else if (arg.startsWith("--max-errors=")) {
+                int maxErrors = (int) Math.min(Integer.MAX_VALUE, count(arg.substring("--max-errors=".length())));
+                configure(context -> context.maxErrors(maxErrors));
+            } else if (arg.equals("--parallel")) {
+                configure(context -> context.parallel(true));
+            } else if (arg.equals("--stream")) {
+                stream = true;
+            } else if (arg.startsWith("-")) {
+                usage();
+            } else {
+                scripts.add(arg);
+            }
+        }
+        // Profiling and metering run on interpreters of their own.
+        if (profile != null && engineSelected) usage();
+        if (budget != null) {
+            if (profile != null || engineSelected) usage();
+            Budget limits = budget;
+            configure(context -> context.budget(limits));
+        }
+        if (scripts.size() > 1 && (stream || profile != null)) usage();
+        if (outputPath != null) {
+            outputChannel = FileChannel.open(outputPath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            output = OutputSink.of(outputChannel, Charset.defaultCharset());
+        }
+        if (scripts.size() > 1) {
+            runFiles(scripts);
+        } else if (scripts.size() == 1) {
+            runFile(scripts.get(0));
+        } else if (stream) {
+            LoxContext context = newContext();
+            context.runStream(new InputStreamReader(System.in, Charset.defaultCharset()));
+            exit(context);
         } else {
             runPrompt();
         }
     }
 
+    /**
+     * Adds a configuration step, checking it right away so that invalid options are reported before running anything.
+     */
+    private static void configure (Consumer<LoxContext> step) {
+        try {
+            step.accept(new LoxContext());
+        } catch (IllegalArgumentException e) {
+            usage();
+        }
+        configuration = configuration.andThen(step);
+    }
+
+    /**
+     * Parses a non-negative number given as an option.
+     */
+    private static long count (String text) {
+        try {
+            long count = Long.parseLong(text);
+            if (count >= 0) return count;
+        } catch (NumberFormatException e) {
+            // Reported below.
+        }
+        usage();
+        return 0;
+    }
+
+    private static Budget budget () {
+        if (budget == null) budget = new Budget();
+        return budget;
+    }
+
+    private static LoxContext newContext () {
+        LoxContext context = new LoxContext(output, System.err);
+        configuration.accept(context);
+        if (profile != null) context.profile(profile);
+        return context;
+    }
+
+    private static void usage () {
+        System.out.println("Usage: jlox [--engine=tree|vm|nodes|stack|arena|jvm] [--optimize=all|<pass>,...] "
+            + "[--cache[=<dir>]] [--output=<file>] [--profile[=<file>]] [--fuel=<n>] [--timeout=<ms>] "
+            + "[--max-errors=<n>] [--parallel] [--stream] [script...]");
+        System.exit(EX_USAGE);
+    }
+
     public static void runFile (String path) throws IOException {
-        byte[] bytes = Files.readAllBytes(Paths.get(path));
-        run(new String(bytes, Charset.defaultCharset()));
-        if (hadError) System.exit(EX_DATAERR);
-        if (hadRuntimeError) System.exit(EX_SOFTWARE);
+        LoxContext context = newContext();
+        if (stream) {
+            try (Reader reader = Files.newBufferedReader(Paths.get(path), Charset.defaultCharset())) {
+                context.runStream(reader);
+            }
+        } else {
+            byte[] bytes = Files.readAllBytes(Paths.get(path));
+            context.run(new String(bytes, Charset.defaultCharset()));
+        }
+        exit(context);
+    }
+
+    /**
+     * Runs independent scripts concurrently, each with its own globals. The output and errors of every script are
+     * printed once it is done, in the order of the arguments, and the exit status is the first failing one.
+     */
+    public static void runFiles (List<String> paths) throws IOException, InterruptedException {
+        List<Future<LoxExecutor.Result>> results = new ArrayList<>();
+        try (LoxExecutor executor = new LoxExecutor(configuration)) {
+            for (String path : paths) {
+                byte[] bytes = Files.readAllBytes(Paths.get(path));
+                results.add(executor.submit(new String(bytes, Charset.defaultCharset())));
+            }
+        }
+
+        int exitCode = 0;
+        for (Future<LoxExecutor.Result> future : results) {
+            LoxExecutor.Result result;
+            try {
+                result = future.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+            result.output().lines().forEach(output::println);
+            output.flush();
+            System.err.print(result.errors());
+            if (exitCode == 0) exitCode = result.exitCode();
+        }
+        closeOutput();
+        if (exitCode != 0) System.exit(exitCode);
     }
 
     private static void runPrompt () throws IOException {
         InputStreamReader input = new InputStreamReader(System.in);
         BufferedReader reader = new BufferedReader(input);
+        LoxContext context = newContext();
 
         for (;;) {
             System.out.print("> ");
             String line = reader.readLine();
             // This happens when the user types Control+D
             if (line == null) break;
-            run(line);
-            hadError = false;
+            context.run(line);
+            context.errors().clearError();
         }
+        writeProfile();
+        closeOutput();
     }
 
-    private static void run (String source) {
-        Scanner scanner = new Scanner(source);
-        List<Token> tokens = scanner.scanTokens();
-
-       Parser parser = new Parser(tokens);
-       List<Stmt> statements = parser.parse();
-
-       // Stop if there was a syntax error.
-        if (hadError) return;
-
-        interpreter.interpret(statements);
-    }
-
-    public static void error (int line, String message) {
-        report(line, "", message);
-    }
-
-    public static void error (Token token, String message) {
-        if (token.type == TokenType.EOF) {
-            report(token.line, " at end", message);
-        } else {
-            report(token.line, format(" at '%s'", token.lexeme), message);
+    /**
+     * Prints the hot spots of the profile, if any, and writes its collapsed stacks for flame graph tools.
+     */
+    private static void writeProfile () throws IOException {
+        if (profile == null) return;
+        profile.writeReport(System.err);
+        if (profileStacks == null) return;
+        try (Writer writer = Files.newBufferedWriter(profileStacks)) {
+            profile.writeCollapsedStacks(writer);
         }
     }
 
-    private static void report (int line, String where, String message) {
-        System.err.printf("[line %d] Error %s: %s%n", line, where, message);
-        hadError = true;
+    /**
+     * Writes out everything printed and closes the file given with --output, if any. Nothing may be printed after.
+     */
+    private static void closeOutput () throws IOException {
+        output.flush();
+        if (outputChannel != null) outputChannel.close();
     }
 
-    public static void runtimeError(RuntimeError error) {
-        System.err.println(error.getMessage() + "\n[line " + error.token.line + "]");
-        hadRuntimeError = true;
+    private static void exit (LoxContext context) throws IOException {
+        writeProfile();
+        closeOutput();
+        int exitCode = context.exitCode();
+        if (exitCode != 0) System.exit(exitCode);
     }
 }
@@ -0,0 +1,239 @@
+package com.craftinginterpreters.lox;
+
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import static com.craftinginterpreters.shared.ErrorCode.*;
+
+/**
+ * Everything a running script owns: its execution engine and globals, its optimization passes, where it prints and
+ * where its errors go. Independent contexts share no mutable state and can run scripts on different threads, but a
+ * single context runs one script at a time.
+ */
+public final class LoxContext {
+    private final OutputSink out;
+    private final ErrorReporter errors;
+    private final PassManager passes = new PassManager();
+    private Engine engine;
+    private ProgramCache cache = null;
+    private boolean parallel = false;
+
+    public LoxContext () {
+        this(OutputSink.buffered(System.out, Charset.defaultCharset()), System.err);
+    }
+
+    public LoxContext (OutputSink out, PrintStream err) {
+        this.out = out;
+        this.errors = new ErrorReporter(err, out);
+        this.engine = new Interpreter(out, errors);
+    }
+
+    /**
+     * Selects the execution engine, {@code tree}, {@code vm}, {@code nodes}, {@code stack}, {@code arena} or
+     * {@code jvm}. Globals defined so far are lost.
+     */
+    public LoxContext engine (String name) {
+        engine = switch (name) {
+            case "tree" -> new Interpreter(out, errors);
+            case "vm" -> new VirtualMachine(out, errors);
+            case "nodes" -> new NodeEngine(out, errors);
+            case "stack" -> new StackInterpreter(out, errors);
+            case "arena" -> new ArenaEngine(out, errors);
+            case "jvm" -> new JvmEngine(out, errors);
+            default -> throw new IllegalArgumentException("Unknown engine '" + name + "'.");
+        };
+        return this;
+    }
+
+    /**
+     * Runs scripts on a tree-walking interpreter recording their execution in the profile, in place of the engine
+     * selected so far. Globals defined so far are lost.
+     */
+    public LoxContext profile (Profile profile) {
+        engine = new ProfilingInterpreter(out, errors, profile);
+        return this;
+    }
+
+    /**
+     * Runs scripts on a tree-walking interpreter bounded by the budget, in place of the engine selected so far, stopping
+     * them with an {@link ExecutionLimitError} once it is exceeded. Globals defined so far are lost.
+     */
+    public LoxContext budget (Budget budget) {
+        engine = new MeteredInterpreter(out, errors, budget);
+        return this;
+    }
+
+    /**
+     * Enables an optimization pass by name, or all of them with {@code all}.
+     */
+    public LoxContext optimize (String pass) {
+        if (!passes.enable(pass)) {
+            throw new IllegalArgumentException("Unknown optimization pass '" + pass + "'.");
+        }
+        return this;
+    }
+
+    /**
+     * Reuses the programs parsed by previous runs of the same sources.
+     */
+    public LoxContext cache (ProgramCache cache) {
+        this.cache = cache;
+        return this;
+    }
+
+    /**
+     * Scans and parses large scripts in chunks on the common fork-join pool, reporting the same syntax errors in the
+     * same order.
+     */
+    public LoxContext parallel (boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }
+
+    /**
+     * Stops reporting syntax errors, and parsing, after the first {@code maxErrors} ones.
+     */
+    public LoxContext maxErrors (int maxErrors) {
+        errors.maxErrors(maxErrors);
+        return this;
+    }
+
+    /**
+     * Runs a script, flushing its output and rendering its errors once done.
+     */
+    public void run (String source) {
+        try {
+            runUnflushed(source);
+        } finally {
+            out.flush();
+            errors.flush();
+        }
+    }
+
+    private void runUnflushed (String source) {
+        List<Stmt> statements = cache == null ? parse(source) : parseCached(source);
+        // Stop if there was a syntax error.
+        if (errors.hadError()) return;
+        Program program = prepare(statements);
+        // Engines running a representation of their own no longer need the statements while the program runs.
+        statements = null;
+        execute(program);
+    }
+
+    /**
+     * Loads the statements of the source from the cache, or parses and stores them. Syntax errors are reported again
+     * by every run.
+     */
+    private List<Stmt> parseCached (String source) {
+        byte[] digest = cache.digest(source);
+        List<Stmt> statements = cache.load(digest);
+        if (statements == null) {
+            statements = parse(source);
+            if (!errors.hadError()) cache.store(digest, statements);
+        }
+        return statements;
+    }
+
+    /**
+     * Executes every top-level declaration as soon as it is parsed and then drops it, so that memory use does not
+     * depend on the size of the script. Unlike {@link #run(String)}, the declarations preceding a syntax error are
+     * executed; the following ones are only parsed to report further syntax errors.
+     */
+    public void runStream (Reader reader) {
+        StreamingScanner scanner = new StreamingScanner(reader, errors);
+        Parser parser = new Parser(TokenSource.of(scanner::next), errors);
+        try {
+            while (!parser.isDone() && !errors.hadRuntimeError() && !errors.isFull()) {
+                Stmt statement = parser.parseDeclaration();
+                if (errors.hadError()) continue;
+                execute(prepare(List.of(statement)));
+            }
+        } finally {
+            out.flush();
+            errors.flush();
+        }
+    }
+
+    private List<Stmt> parse (String source) {
+        LoxEvents.Scan scan = new LoxEvents.Scan();
+        scan.begin();
+        TokenBuffer tokens = parallel
+            ? new ParallelScanner(source, errors).scan()
+            : new Scanner(source, errors).scanTokenBuffer();
+        scan.end();
+        if (scan.shouldCommit()) {
+            scan.sourceLength = source.length();
+            scan.tokenCount = tokens.size();
+            scan.commit();
+        }
+
+        LoxEvents.Parse parse = new LoxEvents.Parse();
+        parse.begin();
+        List<Stmt> statements = parallel
+            ? new ParallelParser(tokens, errors).parse()
+            : new Parser(tokens.cursor(), errors).parse();
+        parse.end();
+        if (parse.shouldCommit()) {
+            parse.tokenCount = tokens.size();
+            parse.statementCount = statements.size();
+            parse.commit();
+        }
+        return statements;
+    }
+
+    /**
+     * Optimizes and resolves the statements, and has the engine convert them to what it runs.
+     */
+    private Program prepare (List<Stmt> statements) {
+        LoxEvents.Optimize optimize = new LoxEvents.Optimize();
+        optimize.begin();
+        statements = passes.run(statements);
+        optimize.end();
+        if (optimize.shouldCommit()) {
+            optimize.statementCount = statements.size();
+            optimize.commit();
+        }
+
+        LoxEvents.Resolve resolve = new LoxEvents.Resolve();
+        resolve.begin();
+        new Resolver().resolve(statements);
+        resolve.end();
+        if (resolve.shouldCommit()) {
+            resolve.statementCount = statements.size();
+            resolve.commit();
+        }
+        return new Program(engine.prepare(statements), statements.size());
+    }
+
+    private void execute (Program program) {
+        LoxEvents.Execute execute = new LoxEvents.Execute();
+        execute.begin();
+        program.run().run();
+        execute.end();
+        if (execute.shouldCommit()) {
+            execute.engine = engine.getClass().getSimpleName();
+            execute.statementCount = program.statementCount();
+            execute.commit();
+        }
+    }
+
+    /**
+     * A program prepared by the engine, and the number of top-level statements left once optimized.
+     */
+    private record Program (Runnable run, int statementCount) {}
+
+    public ErrorReporter errors () {
+        return errors;
+    }
+
+    /**
+     * The exit status of the scripts run so far, following sysexits.h.
+     */
+    public int exitCode () {
+        if (errors.hadError()) return EX_DATAERR;
+        if (errors.hadRuntimeError()) return EX_SOFTWARE;
+        return 0;
+    }
+}
@@ -0,0 +1,497 @@
+package com.craftinginterpreters.lox;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static java.lang.String.format;
+
+/**
+ * A Lox source being edited, kept scanned and parsed incrementally for editor tooling. The source is split into
+ * segments, one per top-level declaration (with the whitespace and comments preceding it) plus a trailing one, each
+ * holding its own text, so that an edit only copies, re-scans and re-parses the declarations it touches. Scanning and
+ * parsing are resumed from the start of the first touched segment, and stop as soon as a declaration ends where an
+ * untouched one used to start: past that point, neither the scanner nor the parser carry any state, so the following
+ * segments are reused as they are. Only a window of the segments following the edit is scanned at first; should a
+ * string or a block comment make the edit spill over all of them, the window grows and the edit is parsed again.
+ *
+ * <p>Segments store their syntax errors relative to their first line, so that lines inserted above them cost
+ * nothing. Their statements hold absolute lines however: the tokens of a segment that moved to another line are only
+ * moved, by copying its statement, when {@link #statements()} is called. Segments are kept in a tree indexed by their
+ * lengths and line counts, so that apart from scanning and parsing, an edit takes a logarithmic time.
+ */
+public final class LoxDocument {
+    // Number of untouched segments scanned after an edit at first.
+    private static final int WINDOW = 4;
+
+    private final Segments segments = new Segments(new Segment("", null, 1, List.of(), 0));
+    private int length = 0;
+
+    public LoxDocument (String text) {
+        edit(0, 0, text);
+    }
+
+    public String text () {
+        StringBuilder text = new StringBuilder(length);
+        for (Segment segment : segments) {
+            text.append(segment.text);
+        }
+        return text.toString();
+    }
+
+    public int length () {
+        return length;
+    }
+
+    /**
+     * Replaces {@code length} characters at {@code offset} with the replacement.
+     */
+    public void edit (int offset, int length, String replacement) {
+        if (offset < 0 || length < 0 || offset + length > this.length) {
+            throw new IndexOutOfBoundsException(format("Edit [%d, %d) out of [0, %d).",
+                offset, offset + length, this.length));
+        }
+
+        // Resume from the first segment ending at or after the edit: an edit right after a declaration may extend
+        // its last token. After a syntax error, the parser skips tokens until the start of a statement, so the
+        // segment following one with errors is only parsed again from the start of the latter.
+        Position position = segments.locate(offset);
+        int first = position.index();
+        int start = position.start();
+        int line = position.line();
+        if (first > 0 && !segments.get(first - 1).errors.isEmpty()) {
+            first--;
+            start -= segments.get(first).length();
+            line -= segments.get(first).newlines;
+        }
+
+        // The window starts with the segments the edit touches.
+        int last = first;
+        for (int end = start; end < offset + length || last == first; last++) {
+            end += segments.get(last).length();
+        }
+        for (int window = WINDOW; !reparse(first, last + window, start, line, offset - start, length, replacement);
+                window *= 4) {
+            // Try again with a larger window.
+        }
+        this.length += replacement.length() - length;
+    }
+
+    /**
+     * Parses again the segments in {@code [first, last)} with the edit applied at the given offset from their start,
+     * until reaching a segment that can be reused.
+     *
+     * @return false if the parser reached the end of the window before such a segment, true once the segments have
+     *     been replaced.
+     */
+    private boolean reparse (int first, int last, int start, int line, int offset, int length, String replacement) {
+        last = Math.min(last, segments.size());
+        StringBuilder builder = new StringBuilder();
+        for (int i = first; i < last; i++) {
+            builder.append(segments.get(i).text);
+        }
+        builder.replace(offset, offset + length, replacement);
+        String window = builder.toString();
+        int oldEditEnd = offset + length;
+        int delta = replacement.length() - length;
+
+        Collector errors = new Collector();
+        Tokens tokens = new Tokens(new Scanner(window, errors, 0, line), errors);
+        Parser parser = new Parser(TokenSource.of(tokens::next), errors);
+
+        List<Segment> parsed = new ArrayList<>();
+        int segmentStart = 0;
+        // Old segment that could be the first to reuse, and where it started relative to the window.
+        int next = first;
+        int nextStart = 0;
+        for (;;) {
+            if (parser.isDone()) {
+                // The end of the window is only the end of the source if it includes the trailing segment.
+                if (last < segments.size()) return false;
+                errors.lexical.addAll(errors.lookahead);
+                parsed.add(segment(window.substring(segmentStart), null, line, errors));
+                next = last;
+                break;
+            }
+
+            Stmt statement = parser.parseDeclaration();
+            int end = tokens.previousEnd;
+            Segment segment = segment(window.substring(segmentStart, end), statement, line, errors);
+            parsed.add(segment);
+            errors.lexical = new ArrayList<>();
+            errors.syntax = new ArrayList<>();
+            segmentStart = end;
+            line += segment.newlines;
+
+            // Skip the old segments starting before this position, and stop if one starts right here after the edit.
+            // Its first token must be in the window, for the parser to have seen the same lookahead as before.
+            int oldEnd = end - delta;
+            while (next < last && nextStart < oldEnd) {
+                nextStart += segments.get(next).length();
+                next++;
+            }
+            if (nextStart == oldEnd && oldEnd >= oldEditEnd && next < last) break;
+        }
+
+        segments.replace(first, next, parsed);
+        return true;
+    }
+
+    /**
+     * The statements of the declarations without syntax errors.
+     */
+    public List<Stmt> statements () {
+        List<Stmt> statements = new ArrayList<>();
+        int line = 1;
+        for (Segment segment : segments) {
+            if (segment.statement != null && segment.errors.isEmpty()) {
+                if (segment.line != line) {
+                    segment.statement = segment.statement.accept(new Rebase(line - segment.line));
+                    segment.line = line;
+                }
+                statements.add(segment.statement);
+            }
+            line += segment.newlines;
+        }
+        return statements;
+    }
+
+    /**
+     * The errors of the document in the order a full parse reports them: the scanner runs over the whole source
+     * before the parser starts, so every error found while scanning comes first, then every error found while parsing.
+     */
+    public List<Diagnostic> diagnostics () {
+        List<Diagnostic> diagnostics = new ArrayList<>();
+        addErrors(diagnostics, true);
+        addErrors(diagnostics, false);
+        return diagnostics;
+    }
+
+    private void addErrors (List<Diagnostic> diagnostics, boolean lexical) {
+        int line = 1;
+        for (Segment segment : segments) {
+            int from = lexical ? 0 : segment.lexicalErrors;
+            int to = lexical ? segment.lexicalErrors : segment.errors.size();
+            for (Diagnostic error : segment.errors.subList(from, to)) {
+                diagnostics.add(Diagnostic.syntax(line + error.line(), error.where(), error.message()));
+            }
+            line += segment.newlines;
+        }
+    }
+
+    private static Segment segment (String text, Stmt statement, int line, Collector errors) {
+        List<Diagnostic> relative = new ArrayList<>(errors.lexical.size() + errors.syntax.size());
+        for (List<Diagnostic> list : List.of(errors.lexical, errors.syntax)) {
+            for (Diagnostic error : list) {
+                relative.add(Diagnostic.syntax(error.line() - line, error.where(), error.message()));
+            }
+        }
+        return new Segment(text, statement, line, relative, errors.lexical.size());
+    }
+
+    private static final class Segment {
+        final String text;
+        final int newlines;
+        // The statement parsed from the segment, null on syntax errors, and the line it started on back then.
+        Stmt statement;
+        int line;
+        // Lines relative to the first line of the segment, the errors found while scanning first.
+        final List<Diagnostic> errors;
+        final int lexicalErrors;
+
+        Segment (String text, Stmt statement, int line, List<Diagnostic> errors, int lexicalErrors) {
+            this.text = text;
+            int newlines = 0;
+            for (int i = 0; i < text.length(); i++) {
+                if (text.charAt(i) == '\n') newlines++;
+            }
+            this.newlines = newlines;
+            this.statement = statement;
+            this.line = line;
+            this.errors = errors;
+            this.lexicalErrors = lexicalErrors;
+        }
+
+        int length () {
+            return text.length();
+        }
+    }
+
+    /**
+     * Where a segment starts: its index, offset and first line.
+     */
+    private record Position (int index, int start, int line) {}
+
+    /**
+     * The segments of a document in order, as a treap: a binary tree ordered by position, balanced by random node
+     * priorities, whose nodes also hold the number, length and newlines of the segments under them. Finding a segment
+     * by index or by offset, and replacing a range of segments, walk down a path of the tree.
+     */
+    private static final class Segments implements Iterable<Segment> {
+        private final Random random = new Random(0);
+        private Node root;
+
+        Segments (Segment segment) {
+            root = node(segment);
+        }
+
+        int size () {
+            return count(root);
+        }
+
+        Segment get (int index) {
+            Node node = root;
+            for (;;) {
+                int left = count(node.left);
+                if (index == left) return node.segment;
+                if (index < left) {
+                    node = node.left;
+                } else {
+                    index -= left + 1;
+                    node = node.right;
+                }
+            }
+        }
+
+        /**
+         * The first segment ending at or after the offset, which must not be past the end of the last one.
+         */
+        Position locate (int offset) {
+            Node node = root;
+            int index = 0;
+            int start = 0;
+            int line = 1;
+            for (;;) {
+                if (node.left != null && start + node.left.length >= offset) {
+                    node = node.left;
+                    continue;
+                }
+                index += count(node.left);
+                start += length(node.left);
+                line += newlines(node.left);
+                if (start + node.segment.length() >= offset) return new Position(index, start, line);
+                index++;
+                start += node.segment.length();
+                line += node.segment.newlines;
+                node = node.right;
+            }
+        }
+
+        /**
+         * Replaces the segments in {@code [from, to)}.
+         */
+        void replace (int from, int to, List<Segment> replacement) {
+            Node[] tail = split(root, to);
+            Node[] head = split(tail[0], from);
+            Node middle = null;
+            for (Segment segment : replacement) {
+                middle = merge(middle, node(segment));
+            }
+            root = merge(merge(head[0], middle), tail[1]);
+        }
+
+        @Override
+        public Iterator<Segment> iterator () {
+            return new Iterator<>() {
+                private final Deque<Node> path = new ArrayDeque<>();
+                private Node node = root;
+
+                @Override
+                public boolean hasNext () {
+                    return node != null || !path.isEmpty();
+                }
+
+                @Override
+                public Segment next () {
+                    while (node != null) {
+                        path.push(node);
+                        node = node.left;
+                    }
+                    if (path.isEmpty()) throw new NoSuchElementException();
+                    Node next = path.pop();
+                    node = next.right;
+                    return next.segment;
+                }
+            };
+        }
+
+        private Node node (Segment segment) {
+            return new Node(segment, random.nextInt()).update();
+        }
+
+        /**
+         * Splits a tree into its first {@code count} segments and the others.
+         */
+        private static Node[] split (Node node, int count) {
+            if (node == null) return new Node[2];
+            int left = count(node.left);
+            if (count <= left) {
+                Node[] parts = split(node.left, count);
+                node.left = parts[1];
+                parts[1] = node.update();
+                return parts;
+            }
+            Node[] parts = split(node.right, count - left - 1);
+            node.right = parts[0];
+            parts[0] = node.update();
+            return parts;
+        }
+
+        /**
+         * Joins two trees, the segments of the first one preceding the ones of the second.
+         */
+        private static Node merge (Node first, Node second) {
+            if (first == null) return second;
+            if (second == null) return first;
+            if (first.priority > second.priority) {
+                first.right = merge(first.right, second);
+                return first.update();
+            }
+            second.left = merge(first, second.left);
+            return second.update();
+        }
+
+        private static int count (Node node) {
+            return node == null ? 0 : node.count;
+        }
+
+        private static int length (Node node) {
+            return node == null ? 0 : node.length;
+        }
+
+        private static int newlines (Node node) {
+            return node == null ? 0 : node.newlines;
+        }
+
+        private static final class Node {
+            final Segment segment;
+            final int priority;
+            Node left;
+            Node right;
+            // Totals over the subtree.
+            int count;
+            int length;
+            int newlines;
+
+            Node (Segment segment, int priority) {
+                this.segment = segment;
+                this.priority = priority;
+            }
+
+            Node update () {
+                count = count(left) + 1 + count(right);
+                length = length(left) + segment.length() + length(right);
+                newlines = newlines(left) + segment.newlines + newlines(right);
+                return this;
+            }
+        }
+    }
+
+    /**
+     * Copies a statement with its tokens moved by a number of lines.
+     */
+    private static final class Rebase extends AstTransformer {
+        private final int lines;
+
+        Rebase (int lines) {
+            this.lines = lines;
+        }
+
+        @Override
+        public String name () {
+            return "rebase";
+        }
+
+        @Override
+        public Stmt visitPrintStmt(Stmt.Print stmt) {
+            return new Stmt.Print(transform(stmt.expression), stmt.line + lines);
+        }
+
+        @Override
+        public Stmt visitVarStmt(Stmt.Var stmt) {
+            return new Stmt.Var(move(stmt.name), stmt.initializer == null ? null : transform(stmt.initializer));
+        }
+
+        @Override
+        public Expr visitAssignExpr(Expr.Assign expr) {
+            return new Expr.Assign(move(expr.name), transform(expr.value));
+        }
+
+        @Override
+        public Expr visitBinaryExpr(Expr.Binary expr) {
+            return new Expr.Binary(transform(expr.left), move(expr.operator), transform(expr.right));
+        }
+
+        @Override
+        public Expr visitLiteralExpr(Expr.Literal expr) {
+            return new Expr.Literal(expr.value, expr.line + lines);
+        }
+
+        @Override
+        public Expr visitUnaryExpr(Expr.Unary expr) {
+            return new Expr.Unary(move(expr.operator), transform(expr.right));
+        }
+
+        @Override
+        public Expr visitVariableExpr(Expr.Variable expr) {
+            return new Expr.Variable(move(expr.name));
+        }
+
+        private Token move (Token token) {
+            return new Token(token.type, token.lexeme, token.literal, token.line + lines);
+        }
+    }
+
+    /**
+     * Collects the errors of the segment being parsed instead of printing them. Errors found while scanning a token
+     * belong to the segment the token ends up in, which is only known once the parser moves past it.
+     */
+    private static final class Collector extends ErrorReporter {
+        List<Diagnostic> lexical = new ArrayList<>();
+        List<Diagnostic> syntax = new ArrayList<>();
+        List<Diagnostic> lookahead = new ArrayList<>();
+        boolean scanning = false;
+
+        Collector () {
+            super(System.err);
+        }
+
+        @Override
+        void report (int line, String where, String message) {
+            (scanning ? lookahead : syntax).add(Diagnostic.syntax(line, where, message));
+        }
+    }
+
+    /**
+     * Tokens pulled by the parser, one ahead of the last one it consumed, remembering where that one ended.
+     */
+    private static final class Tokens {
+        private final Scanner scanner;
+        private final Collector errors;
+        private int lastEnd;
+        int previousEnd;
+
+        Tokens (Scanner scanner, Collector errors) {
+            this.scanner = scanner;
+            this.errors = errors;
+            this.lastEnd = scanner.position();
+        }
+
+        Token next () {
+            // The parser consumed the previous lookahead token.
+            errors.lexical.addAll(errors.lookahead);
+            errors.lookahead = new ArrayList<>();
+            previousEnd = lastEnd;
+
+            errors.scanning = true;
+            Token token = scanner.next();
+            errors.scanning = false;
+            lastEnd = scanner.position();
+            return token;
+        }
+    }
+}
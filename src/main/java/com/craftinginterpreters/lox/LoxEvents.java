@@ -0,0 +1,97 @@
+package com.craftinginterpreters.lox;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events for the phases of running a script and the errors it reports, so that recordings show
+ * what the interpreter was doing next to GC and CPU events. Events cost almost nothing when no recording is running:
+ * their fields are only filled in when {@link Event#shouldCommit()} says they will be recorded.
+ */
+final class LoxEvents {
+    private LoxEvents () {}
+
+    @Name("com.craftinginterpreters.lox.Scan")
+    @Label("Scan")
+    @Category("Lox")
+    @StackTrace(false)
+    static final class Scan extends Event {
+        @Label("Source Length")
+        @Description("Number of characters of the source")
+        int sourceLength;
+
+        @Label("Token Count")
+        int tokenCount;
+    }
+
+    @Name("com.craftinginterpreters.lox.Parse")
+    @Label("Parse")
+    @Category("Lox")
+    @StackTrace(false)
+    static final class Parse extends Event {
+        @Label("Token Count")
+        int tokenCount;
+
+        @Label("Statement Count")
+        @Description("Number of top-level statements")
+        int statementCount;
+    }
+
+    @Name("com.craftinginterpreters.lox.Optimize")
+    @Label("Optimize")
+    @Category("Lox")
+    @StackTrace(false)
+    static final class Optimize extends Event {
+        @Label("Statement Count")
+        int statementCount;
+    }
+
+    @Name("com.craftinginterpreters.lox.Resolve")
+    @Label("Resolve")
+    @Category("Lox")
+    @StackTrace(false)
+    static final class Resolve extends Event {
+        @Label("Statement Count")
+        int statementCount;
+    }
+
+    @Name("com.craftinginterpreters.lox.Execute")
+    @Label("Execute")
+    @Category("Lox")
+    @StackTrace(false)
+    static final class Execute extends Event {
+        @Label("Engine")
+        String engine;
+
+        @Label("Statement Count")
+        int statementCount;
+    }
+
+    @Name("com.craftinginterpreters.lox.SyntaxError")
+    @Label("Syntax Error")
+    @Category({"Lox", "Errors"})
+    @StackTrace(false)
+    static final class SyntaxError extends Event {
+        @Label("Line")
+        int line;
+
+        @Label("Message")
+        String message;
+    }
+
+    @Name("com.craftinginterpreters.lox.RuntimeError")
+    @Label("Runtime Error")
+    @Category({"Lox", "Errors"})
+    @StackTrace(false)
+    static final class RuntimeError extends Event {
+        @Label("Line")
+        int line;
+
+        @Label("Message")
+        String message;
+    }
+}
@@ -0,0 +1,86 @@
+package com.craftinginterpreters.lox;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Runs many independent scripts concurrently in one JVM, each in a fresh {@link LoxContext} capturing its output and
+ * errors. Scripts run on virtual threads when the Java runtime has them, and on one platform thread per processor
+ * otherwise.
+ */
+public final class LoxExecutor implements AutoCloseable {
+    private final ExecutorService executor = newExecutor();
+    private final Consumer<LoxContext> configuration;
+
+    /**
+     * Outcome of a script: its exit status following sysexits.h, what it printed to its output and errors, and its
+     * errors as diagnostics.
+     */
+    public record Result (int exitCode, String output, String errors, List<Diagnostic> diagnostics) {}
+
+    public LoxExecutor () {
+        this(context -> {});
+    }
+
+    /**
+     * @param configuration applied to the context of every script before running it, to select an engine for example.
+     */
+    public LoxExecutor (Consumer<LoxContext> configuration) {
+        this.configuration = configuration;
+    }
+
+    public Future<Result> submit (String source) {
+        return executor.submit(() -> {
+            OutputSink.Memory out = OutputSink.memory();
+            ByteArrayOutputStream err = new ByteArrayOutputStream();
+            LoxContext context = new LoxContext(out, new PrintStream(err, false, StandardCharsets.UTF_8));
+            configuration.accept(context);
+            context.run(source);
+            return new Result(context.exitCode(), out.contents(), err.toString(StandardCharsets.UTF_8),
+                context.errors().diagnostics());
+        });
+    }
+
+    /**
+     * Waits for the submitted scripts to complete. If the calling thread is interrupted while waiting, the scripts
+     * still running are cancelled and waited for, and the interrupt status is restored before returning, like
+     * ExecutorService.close() does.
+     */
+    @Override
+    public void close () {
+        executor.shutdown();
+        boolean interrupted = false;
+        boolean terminated = false;
+        while (!terminated) {
+            try {
+                terminated = executor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                if (!interrupted) {
+                    executor.shutdownNow();
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ExecutorService newExecutor () {
+        // Looked up reflectively so that the interpreter still runs on Java 17.
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        }
+    }
+}
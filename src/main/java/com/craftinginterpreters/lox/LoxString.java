@@ -0,0 +1,97 @@
+package com.craftinginterpreters.lox;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * A Lox string produced by concatenation, whose characters are only copied when it is flattened: when it is printed,
+ * compared or hashed. Building a string by appending to it again and again is therefore linear in its final length.
+ * The parts of a rope are either {@link String}s or other ropes; once flattened, a rope drops its parts.
+ */
+final class LoxString implements CharSequence {
+    // Concatenations shorter than this are cheaper to copy right away than to keep as a rope.
+    private static final int MIN_ROPE_LENGTH = 64;
+
+    private final int length;
+    private CharSequence left;
+    private CharSequence right;
+    private String flat = null;
+
+    private LoxString (CharSequence left, CharSequence right) {
+        this.length = left.length() + right.length();
+        this.left = left;
+        this.right = right;
+    }
+
+    /**
+     * Concatenates two character sequences, each either a {@link String} or a {@link LoxString}.
+     */
+    static Object concat (CharSequence left, CharSequence right) {
+        if (left.length() == 0) return right;
+        if (right.length() == 0) return left;
+        if (left.length() + right.length() < MIN_ROPE_LENGTH) {
+            return left.toString().concat(right.toString());
+        }
+        return new LoxString(left, right);
+    }
+
+    static boolean isString (Object value) {
+        return value instanceof String || value instanceof LoxString;
+    }
+
+    @Override
+    public int length () {
+        return length;
+    }
+
+    @Override
+    public char charAt (int index) {
+        return toString().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence (int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
+    @Override
+    public String toString () {
+        if (flat == null) {
+            flat = flatten();
+            left = null;
+            right = null;
+        }
+        return flat;
+    }
+
+    // Copies the leaves from left to right with an explicit stack, as ropes built by appending are as deep as long.
+    private String flatten () {
+        char[] chars = new char[length];
+        int offset = 0;
+        Deque<CharSequence> parts = new ArrayDeque<>();
+        parts.push(right);
+        parts.push(left);
+        while (!parts.isEmpty()) {
+            CharSequence part = parts.pop();
+            if (part instanceof LoxString rope && rope.flat == null) {
+                parts.push(rope.right);
+                parts.push(rope.left);
+            } else {
+                String string = part.toString();
+                string.getChars(0, string.length(), chars, offset);
+                offset += string.length();
+            }
+        }
+        return new String(chars);
+    }
+
+    @Override
+    public boolean equals (Object other) {
+        return other instanceof LoxString rope && length == rope.length && toString().equals(rope.toString());
+    }
+
+    @Override
+    public int hashCode () {
+        return toString().hashCode();
+    }
+}
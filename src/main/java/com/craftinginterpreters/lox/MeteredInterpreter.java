@@ -0,0 +1,88 @@
+package com.craftinginterpreters.lox;
+
+/**
+ * Tree-walking interpreter burning one unit of the fuel of a {@link Budget} per statement and expression, and checking
+ * its deadline and cancellation every {@link #CHECK_INTERVAL} of them. Being a separate engine, metering costs nothing
+ * when it is not enabled.
+ */
+final class MeteredInterpreter extends Interpreter {
+    // Reading the clock and the cancellation flag costs more than the nodes themselves.
+    private static final int CHECK_INTERVAL = 1024;
+
+    private final Budget budget;
+    private long fuel;
+    private long deadline = 0;
+    private boolean started = false;
+    private int untilCheck = 1;
+    // The expression last charged for: evaluate and evaluateNumber hand nodes over to each other, which must not cost
+    // twice. Expressions are not evaluated twice in a row otherwise, as there are no loops.
+    private Expr charged = null;
+
+    MeteredInterpreter (OutputSink out, ErrorReporter errors, Budget budget) {
+        super(out, errors);
+        this.budget = budget;
+        this.fuel = budget.fuel();
+    }
+
+    @Override
+    protected void execute (Stmt statement) {
+        try {
+            charged = null;
+            burn();
+            super.execute(statement);
+        } catch (ExecutionLimitError error) {
+            throw error.at(statement);
+        }
+    }
+
+    @Override
+    protected Object evaluate (Expr expression) {
+        try {
+            charge(expression);
+            return super.evaluate(expression);
+        } catch (ExecutionLimitError error) {
+            throw error.at(expression);
+        }
+    }
+
+    @Override
+    protected double evaluateNumber (Expr expression) {
+        try {
+            charge(expression);
+            return super.evaluateNumber(expression);
+        } catch (ExecutionLimitError error) {
+            throw error.at(expression);
+        }
+    }
+
+    private void charge (Expr expression) {
+        if (expression == charged) return;
+        charged = expression;
+        burn();
+    }
+
+    private void burn () {
+        if (--fuel < 0) {
+            fuel = 0;
+            throw new ExecutionLimitError(null, "Execution ran out of fuel.");
+        }
+        if (--untilCheck == 0) {
+            untilCheck = CHECK_INTERVAL;
+            check();
+        }
+    }
+
+    private void check () {
+        if (budget.isCancelled() || Thread.currentThread().isInterrupted()) {
+            throw new ExecutionLimitError(null, "Execution cancelled.");
+        }
+        if (budget.timeoutNanos() == Long.MAX_VALUE) return;
+        long now = System.nanoTime();
+        if (!started) {
+            started = true;
+            deadline = now + budget.timeoutNanos();
+        } else if (now - deadline > 0) {
+            throw new ExecutionLimitError(null, "Execution timed out.");
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.craftinginterpreters.lox;
+
+/**
+ * Base class of the executable node tree run by the {@link NodeEngine}. Nodes know their parent so that they can
+ * replace themselves in the tree with a version specialized for the operand types they observed at runtime.
+ */
+abstract class Node {
+    Node parent;
+
+    /**
+     * Makes this node a child of {@code this}, returning it for use in field initializers.
+     */
+    final <T extends Node> T adopt (T child) {
+        child.parent = this;
+        return child;
+    }
+
+    /**
+     * Replaces this node with {@code replacement} in its parent.
+     */
+    final <T extends Node> T replace (T replacement) {
+        replacement.parent = parent;
+        parent.replaceChild(this, replacement);
+        return replacement;
+    }
+
+    /**
+     * Called by {@link #replace(Node)}: swaps the given child for its replacement. Only nodes with rewritable children
+     * need to override this.
+     */
+    void replaceChild (Node child, Node replacement) {
+        throw new IllegalStateException(getClass().getSimpleName() + " has no rewritable children.");
+    }
+}
@@ -0,0 +1,106 @@
+package com.craftinginterpreters.lox;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Engine translating resolved statements to a tree of self-specializing {@link StmtNode}s and {@link ExprNode}s,
+ * and executing it.
+ */
+public final class NodeEngine implements Engine, Expr.Visitor<ExprNode>, Stmt.Visitor<StmtNode> {
+    private final OutputSink out;
+    private final ErrorReporter errors;
+    private final Environment globals = new Environment();
+
+    public NodeEngine () {
+        this(OutputSink.of(System.out), new ErrorReporter(System.err));
+    }
+
+    public NodeEngine (OutputSink out, ErrorReporter errors) {
+        this.out = out;
+        this.errors = errors;
+    }
+
+    @Override
+    public void interpret (List<Stmt> statements) {
+        try {
+            for (Stmt statement : statements) {
+                statement.accept(this).execute(null);
+            }
+        } catch (RuntimeError error) {
+            errors.runtimeError(error);
+        }
+    }
+
+    @Override
+    public StmtNode visitBlockStmt(Stmt.Block stmt) {
+        List<StmtNode> statements = new ArrayList<>();
+        for (Stmt statement : stmt.statements) {
+            statements.add(statement.accept(this));
+        }
+        return new StmtNode.Block(statements, stmt.slots);
+    }
+
+    @Override
+    public StmtNode visitExpressionStmt(Stmt.Expression stmt) {
+        return new StmtNode.Expression(build(stmt.expression));
+    }
+
+    @Override
+    public StmtNode visitPrintStmt(Stmt.Print stmt) {
+        return new StmtNode.Print(out, build(stmt.expression));
+    }
+
+    @Override
+    public StmtNode visitVarStmt(Stmt.Var stmt) {
+        ExprNode initializer = stmt.initializer != null ? build(stmt.initializer) : new ExprNode.Constant(null);
+        if (stmt.slot < 0) {
+            return new StmtNode.DefineGlobal(globals, stmt.name.symbol(), initializer);
+        }
+        return new StmtNode.DefineLocal(stmt.slot, initializer);
+    }
+
+    @Override
+    public ExprNode visitAssignExpr(Expr.Assign expr) {
+        if (expr.depth < 0) {
+            return new ExprNode.WriteGlobal(globals, expr.name, build(expr.value));
+        }
+        return new ExprNode.WriteLocal(expr.depth, expr.slot, build(expr.value));
+    }
+
+    @Override
+    public ExprNode visitBinaryExpr(Expr.Binary expr) {
+        return new ExprNode.UninitializedBinary(expr.operator, build(expr.left), build(expr.right));
+    }
+
+    @Override
+    public ExprNode visitGroupingExpr(Expr.Grouping expr) {
+        // Groupings only matter to the parser.
+        return build(expr.expression);
+    }
+
+    @Override
+    public ExprNode visitLiteralExpr(Expr.Literal expr) {
+        return new ExprNode.Constant(expr.value);
+    }
+
+    @Override
+    public ExprNode visitUnaryExpr(Expr.Unary expr) {
+        if (expr.operator.type == TokenType.MINUS) {
+            return new ExprNode.DoubleNegate(expr.operator, build(expr.right));
+        }
+        return new ExprNode.GenericUnary(expr.operator, build(expr.right));
+    }
+
+    @Override
+    public ExprNode visitVariableExpr(Expr.Variable expr) {
+        if (expr.depth < 0) {
+            return new ExprNode.ReadGlobal(globals, expr.name);
+        }
+        return new ExprNode.ReadLocal(expr.depth, expr.slot);
+    }
+
+    private ExprNode build (Expr expression) {
+        return expression.accept(this);
+    }
+}
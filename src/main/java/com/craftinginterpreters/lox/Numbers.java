@@ -0,0 +1,87 @@
+package com.craftinginterpreters.lox;
+
+/**
+ * Parsing of number literals and formatting of numbers, with fast paths for the common cases that work on characters
+ * in place. Results are always the same as the ones of {@link Double#parseDouble(String)} and of
+ * {@link Double#toString(double)} without a trailing {@code ".0"}.
+ */
+final class Numbers {
+    // Integers up to 2^53 and powers of ten up to 10^22 are exact doubles, so that dividing the former by the latter
+    // is correctly rounded.
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    // Double#toString switches to scientific notation from 10^7 on.
+    private static final double MAX_PLAIN_INTEGER = 1e7;
+    // Enough for "-9999999".
+    static final int MAX_INTEGER_LENGTH = 8;
+
+    private Numbers () {}
+
+    /**
+     * Parses a number literal spanning {@code [start, end)}: digits, optionally followed by a dot and more digits.
+     */
+    static double parse (CharSequence source, int start, int end) {
+        long mantissa = 0;
+        int fractionDigits = -1;
+        for (int i = start; i < end; i++) {
+            char c = source.charAt(i);
+            if (c == '.') {
+                fractionDigits = 0;
+                continue;
+            }
+            mantissa = mantissa * 10 + (c - '0');
+            if (mantissa > MAX_EXACT_MANTISSA) {
+                return Double.parseDouble(source.subSequence(start, end).toString());
+            }
+            if (fractionDigits >= 0) fractionDigits++;
+        }
+        if (fractionDigits <= 0) return mantissa;
+        if (fractionDigits >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(source.subSequence(start, end).toString());
+        }
+        return mantissa / POWERS_OF_TEN[fractionDigits];
+    }
+
+    static String format (double number) {
+        if (isPlainInteger(number)) {
+            char[] chars = new char[MAX_INTEGER_LENGTH];
+            return new String(chars, 0, formatInteger(number, chars));
+        }
+        String text = Double.toString(number);
+        return text.endsWith(".0") ? text.substring(0, text.length() - 2) : text;
+    }
+
+    /**
+     * Whether the number is an integer that {@link #formatInteger(double, char[])} can format.
+     */
+    static boolean isPlainInteger (double number) {
+        return number == (long) number && Math.abs(number) < MAX_PLAIN_INTEGER;
+    }
+
+    /**
+     * Writes the digits of a plain integer at the start of an array of at least {@link #MAX_INTEGER_LENGTH}
+     * characters.
+     *
+     * @return the number of characters written.
+     */
+    static int formatInteger (double number, char[] chars) {
+        int value = (int) number;
+        // Negative zero keeps its sign, like in Double#toString.
+        boolean negative = value < 0 || (value == 0 && Double.doubleToRawLongBits(number) != 0);
+        int length = negative ? 1 : 0;
+        for (int rest = Math.abs(value); rest >= 10; rest /= 10) length++;
+        length++;
+
+        int position = length;
+        int rest = Math.abs(value);
+        do {
+            chars[--position] = (char) ('0' + rest % 10);
+            rest /= 10;
+        } while (rest != 0);
+        if (negative) chars[0] = '-';
+        return length;
+    }
+}
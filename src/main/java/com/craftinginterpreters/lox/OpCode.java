@@ -0,0 +1,36 @@
+package com.craftinginterpreters.lox;
+
+/**
+ * Instruction set of the {@link VirtualMachine}. Operands follow the opcode byte and are unsigned 16-bit big-endian
+ * integers.
+ */
+final class OpCode {
+    private OpCode () {}
+
+    static final byte CONSTANT = 0;       // [index] Push constant.
+    static final byte NIL = 1;            // Push nil.
+    static final byte TRUE = 2;           // Push true.
+    static final byte FALSE = 3;          // Push false.
+    static final byte POP = 4;            // Discard the top of the stack.
+    static final byte RESERVE = 5;        // [count] Push count nils, the locals of a block.
+    static final byte POP_N = 6;          // [count] Discard count values, the locals of a block.
+    static final byte GET_LOCAL = 7;      // [slot] Push the local at the given stack slot.
+    static final byte SET_LOCAL = 8;      // [slot] Store the top of the stack into a stack slot, without popping it.
+    static final byte GET_GLOBAL = 9;     // [index] Push a global, the constant is its name token.
+    static final byte SET_GLOBAL = 10;    // [index] Store the top of the stack into a global, without popping it.
+    static final byte DEFINE_GLOBAL = 11; // [index] Pop a value and define a global with it.
+    static final byte ADD = 12;
+    static final byte SUBTRACT = 13;
+    static final byte MULTIPLY = 14;
+    static final byte DIVIDE = 15;
+    static final byte GREATER = 16;
+    static final byte GREATER_EQUAL = 17;
+    static final byte LESS = 18;
+    static final byte LESS_EQUAL = 19;
+    static final byte NOT_EQUAL = 20;
+    static final byte BINARY = 21;        // [index] Any other binary operator, the constant is its token.
+    static final byte NEGATE = 22;
+    static final byte NOT = 23;
+    static final byte PRINT = 24;         // Pop a value and print it.
+    static final byte RETURN = 25;
+}
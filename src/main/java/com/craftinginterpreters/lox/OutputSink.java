@@ -0,0 +1,182 @@
+package com.craftinginterpreters.lox;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Where the {@code print} statements of a script write. Sinks may buffer: what was printed is only guaranteed to
+ * have been written after {@link #flush()}. Like {@link PrintStream}, sinks writing to a stream or a file ignore I/O
+ * errors, and drop everything printed after the first one.
+ */
+public interface OutputSink {
+    int BUFFER_SIZE = 1 << 16;
+
+    void println (String line);
+
+    default void println (double number) {
+        println(Numbers.format(number));
+    }
+
+    void flush ();
+
+    /**
+     * A sink writing every line to the print stream right away, without buffering.
+     */
+    static OutputSink of (PrintStream stream) {
+        return new OutputSink() {
+            @Override
+            public void println (String line) {
+                stream.println(line);
+            }
+
+            @Override
+            public void flush () {
+                stream.flush();
+            }
+        };
+    }
+
+    /**
+     * A sink buffering up to {@link #BUFFER_SIZE} bytes before writing them to the stream.
+     */
+    static OutputSink buffered (OutputStream stream, Charset charset) {
+        return new OutputSink() {
+            private final Writer writer =
+                new OutputStreamWriter(new BufferedOutputStream(stream, BUFFER_SIZE), charset);
+            private final String lineSeparator = System.lineSeparator();
+            private final char[] digits = new char[Numbers.MAX_INTEGER_LENGTH];
+            private boolean failed = false;
+
+            @Override
+            public void println (String line) {
+                if (failed) return;
+                try {
+                    writer.write(line);
+                    writer.write(lineSeparator);
+                } catch (IOException e) {
+                    failed = true;
+                }
+            }
+
+            @Override
+            public void println (double number) {
+                if (!Numbers.isPlainInteger(number)) {
+                    println(Numbers.format(number));
+                    return;
+                }
+                if (failed) return;
+                try {
+                    writer.write(digits, 0, Numbers.formatInteger(number, digits));
+                    writer.write(lineSeparator);
+                } catch (IOException e) {
+                    failed = true;
+                }
+            }
+
+            @Override
+            public void flush () {
+                if (failed) return;
+                try {
+                    writer.flush();
+                } catch (IOException e) {
+                    failed = true;
+                }
+            }
+        };
+    }
+
+    /**
+     * A sink encoding lines into a buffer of {@link #BUFFER_SIZE} bytes, written to the channel whenever it is full,
+     * without any intermediate stream.
+     */
+    static OutputSink of (FileChannel channel, Charset charset) {
+        return new OutputSink() {
+            private final CharsetEncoder encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            private final CharBuffer lineSeparator = CharBuffer.wrap(System.lineSeparator());
+            private final CharBuffer digits = CharBuffer.allocate(Numbers.MAX_INTEGER_LENGTH);
+            private boolean failed = false;
+
+            @Override
+            public void println (String line) {
+                encode(CharBuffer.wrap(line));
+                encode(lineSeparator.rewind());
+            }
+
+            @Override
+            public void println (double number) {
+                if (!Numbers.isPlainInteger(number)) {
+                    println(Numbers.format(number));
+                    return;
+                }
+                digits.clear();
+                digits.limit(Numbers.formatInteger(number, digits.array()));
+                encode(digits);
+                encode(lineSeparator.rewind());
+            }
+
+            private void encode (CharBuffer chars) {
+                while (!failed) {
+                    CoderResult result = encoder.encode(chars, buffer, false);
+                    if (!result.isOverflow()) return;
+                    flush();
+                }
+            }
+
+            @Override
+            public void flush () {
+                if (failed) return;
+                buffer.flip();
+                try {
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                } catch (IOException e) {
+                    failed = true;
+                }
+                buffer.clear();
+            }
+        };
+    }
+
+    /**
+     * A sink capturing lines in memory, for embedders to read back what a script printed.
+     */
+    static Memory memory () {
+        return new Memory();
+    }
+
+    final class Memory implements OutputSink {
+        private final StringBuilder contents = new StringBuilder();
+
+        private Memory () {}
+
+        @Override
+        public void println (String line) {
+            contents.append(line).append('\n');
+        }
+
+        @Override
+        public void flush () {}
+
+        /**
+         * Everything printed so far, every line followed by a {@code '\n'}.
+         */
+        public String contents () {
+            return contents.toString();
+        }
+    }
+}
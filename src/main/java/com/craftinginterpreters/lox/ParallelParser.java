@@ -0,0 +1,120 @@
+package com.craftinginterpreters.lox;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parses the top-level declarations of a large program in chunks on a fork-join pool. Chunks end after a
+ * {@code ';'} or a {@code '}'} outside of any braces and parentheses, where declarations of a valid program end.
+ * Parsing a declaration never looks past its last token, so a chunk parsed without errors yields the same statements
+ * as the sequential parser would. Errors are only collected while parsing chunks: from the first chunk with one on,
+ * the program is parsed again sequentially, reporting its errors in the same order and with the same messages as
+ * {@link Parser#parse()}.
+ */
+final class ParallelParser {
+    // Smaller chunks are not worth a task.
+    private static final int MIN_CHUNK_TOKENS = 1 << 14;
+    // Chunks per worker, so that workers done early can steal the remaining ones.
+    private static final int CHUNKS_PER_WORKER = 4;
+
+    private final TokenBuffer tokens;
+    private final ErrorReporter errors;
+    private final ForkJoinPool pool;
+    private final int minChunkTokens;
+
+    ParallelParser (TokenBuffer tokens, ErrorReporter errors) {
+        this(tokens, errors, ForkJoinPool.commonPool(), MIN_CHUNK_TOKENS);
+    }
+
+    /**
+     * A parser splitting the program in chunks of at least {@code minChunkTokens} tokens, small ones making tests cross
+     * many chunk boundaries.
+     */
+    ParallelParser (TokenBuffer tokens, ErrorReporter errors, ForkJoinPool pool, int minChunkTokens) {
+        this.tokens = tokens;
+        this.errors = errors;
+        this.pool = pool;
+        this.minChunkTokens = minChunkTokens;
+    }
+
+    List<Stmt> parse () {
+        if (pool.getParallelism() == 1) return new Parser(tokens.cursor(), errors).parse();
+        List<Integer> bounds = split();
+        if (bounds.size() <= 2) return new Parser(tokens.cursor(), errors).parse();
+
+        List<ForkJoinTask<Chunk>> chunks = new ArrayList<>();
+        for (int i = 0; i + 1 < bounds.size(); i++) {
+            int from = bounds.get(i);
+            int end = bounds.get(i + 1);
+            chunks.add(pool.submit(() -> parse(from, end)));
+        }
+
+        List<Stmt> statements = new ArrayList<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            Chunk chunk = chunks.get(i).join();
+            if (chunk.hadError) {
+                for (ForkJoinTask<Chunk> rest : chunks.subList(i + 1, chunks.size())) {
+                    rest.cancel(false);
+                }
+                statements.addAll(new Parser(tokens.cursor(bounds.get(i), tokens.size() - 1), errors).parse());
+                return statements;
+            }
+            statements.addAll(chunk.statements);
+        }
+        return statements;
+    }
+
+    private Chunk parse (int from, int end) {
+        Silent errors = new Silent();
+        List<Stmt> statements = new Parser(tokens.cursor(from, end), errors).parse();
+        return new Chunk(statements, errors.hadError);
+    }
+
+    /**
+     * The indices the chunks start at, followed by the index of the {@link TokenType#EOF} token.
+     */
+    private List<Integer> split () {
+        int eof = tokens.size() - 1;
+        int workers = pool.getParallelism() * CHUNKS_PER_WORKER;
+        int chunkTokens = Math.max(minChunkTokens, eof / workers);
+
+        List<Integer> bounds = new ArrayList<>();
+        bounds.add(0);
+        int depth = 0;
+        for (int i = 0, start = 0; i < eof; i++) {
+            TokenType type = tokens.type(i);
+            switch (type) {
+                case LEFT_BRACE, LEFT_PAREN -> depth++;
+                case RIGHT_BRACE, RIGHT_PAREN -> depth--;
+                default -> {}
+            }
+            if (depth == 0 && (type == TokenType.SEMICOLON || type == TokenType.RIGHT_BRACE)
+                    && i + 1 - start >= chunkTokens && eof - (i + 1) >= chunkTokens) {
+                start = i + 1;
+                bounds.add(start);
+            }
+        }
+        bounds.add(eof);
+        return bounds;
+    }
+
+    private record Chunk (List<Stmt> statements, boolean hadError) {}
+
+    /**
+     * Only records whether there was an error, which is reported again by the sequential parser.
+     */
+    private static final class Silent extends ErrorReporter {
+        boolean hadError = false;
+
+        Silent () {
+            super(System.err);
+        }
+
+        @Override
+        void report (int line, String where, String message) {
+            hadError = true;
+        }
+    }
+}
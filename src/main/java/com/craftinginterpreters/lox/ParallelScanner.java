@@ -0,0 +1,127 @@
+package com.craftinginterpreters.lox;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Scans a large source in chunks on a fork-join pool. Chunks start after a newline and are scanned as if they were
+ * sources of their own, starting on line zero: between tokens, the scanner only carries its position and its line, so
+ * a chunk starting where the tokens of the previous one end is scanned right, its lines only off by a constant. The
+ * chunks are then stitched together in order. A chunk can only be wrong when a string or a block comment of the
+ * previous one runs into it, in which case the source is scanned again sequentially from the start of that string or
+ * comment up to the next chunk. Errors are replayed in order once their chunk is stitched, so that they are reported
+ * as by {@link Scanner#scanTokenBuffer()}.
+ */
+final class ParallelScanner {
+    // Smaller chunks are not worth a task.
+    private static final int MIN_CHUNK_LENGTH = 1 << 16;
+    // Chunks per worker, so that workers done early can steal the remaining ones.
+    private static final int CHUNKS_PER_WORKER = 4;
+
+    private final String source;
+    private final ErrorReporter errors;
+    private final ForkJoinPool pool;
+    private final int minChunkLength;
+
+    ParallelScanner (String source, ErrorReporter errors) {
+        this(source, errors, ForkJoinPool.commonPool(), MIN_CHUNK_LENGTH);
+    }
+
+    /**
+     * A scanner splitting the source in chunks of at least {@code minChunkLength} characters, small ones making tests
+     * cross many chunk boundaries.
+     */
+    ParallelScanner (String source, ErrorReporter errors, ForkJoinPool pool, int minChunkLength) {
+        this.source = source;
+        this.errors = errors;
+        this.pool = pool;
+        this.minChunkLength = minChunkLength;
+    }
+
+    TokenBuffer scan () {
+        if (pool.getParallelism() == 1) return new Scanner(source, errors).scanTokenBuffer();
+        int[] bounds = split();
+        if (bounds.length <= 2) return new Scanner(source, errors).scanTokenBuffer();
+
+        List<ForkJoinTask<Chunk>> chunks = new ArrayList<>();
+        for (int i = 0; i + 1 < bounds.length; i++) {
+            int start = bounds[i];
+            int end = bounds[i + 1];
+            chunks.add(pool.submit(() -> scan(start, end)));
+        }
+
+        TokenBuffer tokens = new TokenBuffer(source);
+        int position = 0;
+        int line = 1;
+        int chunk = 0;
+        while (position < source.length()) {
+            while (bounds[chunk + 1] <= position) chunk++;
+            if (position == bounds[chunk]) {
+                Chunk scanned = chunks.get(chunk).join();
+                tokens.addAll(scanned.tokens, line);
+                for (LexicalError error : scanned.errors) {
+                    errors.error(line + error.line, error.message);
+                }
+                position = scanned.end;
+                line += scanned.lines;
+                if (scanned.complete) continue;
+            }
+
+            // A string or a comment crossed into the next chunk: scan it and the tokens following it in its chunk.
+            Scanner scanner = new Scanner(source, errors, position, line);
+            scanner.scanTokens(tokens, bounds[chunk + 1]);
+            position = scanner.position();
+            line = scanner.line();
+        }
+        tokens.add(TokenType.EOF, source.length(), 0, line);
+        return tokens;
+    }
+
+    private Chunk scan (int start, int end) {
+        Collector errors = new Collector();
+        // Source code averages several characters per token.
+        TokenBuffer tokens = new TokenBuffer(source, (end - start) / 4);
+        Scanner scanner = new Scanner(source, errors, start, 0);
+        boolean complete = scanner.scanChunk(tokens, end);
+        return new Chunk(tokens, errors.errors, scanner.position(), scanner.line(), complete);
+    }
+
+    /**
+     * The offsets the chunks start at, followed by the length of the source.
+     */
+    private int[] split () {
+        int chunkLength = Math.max(minChunkLength, source.length() / (pool.getParallelism() * CHUNKS_PER_WORKER));
+        List<Integer> bounds = new ArrayList<>();
+        bounds.add(0);
+        for (int start = 0;;) {
+            int newline = source.indexOf('\n', start + chunkLength);
+            if (newline < 0 || source.length() - (newline + 1) < chunkLength) break;
+            start = newline + 1;
+            bounds.add(start);
+        }
+        bounds.add(source.length());
+        return bounds.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * The tokens and errors of a chunk, on lines relative to its first one, and where its scanning stopped.
+     */
+    private record Chunk (TokenBuffer tokens, List<LexicalError> errors, int end, int lines, boolean complete) {}
+
+    private record LexicalError (int line, String message) {}
+
+    private static final class Collector extends ErrorReporter {
+        final List<LexicalError> errors = new ArrayList<>();
+
+        Collector () {
+            super(System.err);
+        }
+
+        @Override
+        void report (int line, String where, String message) {
+            errors.add(new LexicalError(line, message));
+        }
+    }
+}
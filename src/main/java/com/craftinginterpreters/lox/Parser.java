@@ -6,24 +6,108 @@ import java.util.List;
 import static com.craftinginterpreters.lox.TokenType.*;
 
 public final class Parser {
-    private static class ParseError extends RuntimeException {}
+    // Only unwinds to the enclosing declaration, so it needs no stack trace.
+    private static class ParseError extends RuntimeException {
+        ParseError () {
+            super(null, null, false, false);
+        }
+    }
+
+    // Binding powers of the infix operators, indexed by token type ordinal: the higher, the tighter an operator binds
+    // its operands. Other tokens have zero and end expressions.
+    private static final int ASSIGNMENT = 1;
+    private static final int EQUALITY = 2;
+    private static final int COMPARISON = 3;
+    private static final int TERM = 4;
+    private static final int FACTOR = 5;
+    private static final byte[] INFIX_POWERS = new byte[TokenType.values().length];
+
+    static {
+        INFIX_POWERS[EQUAL.ordinal()] = ASSIGNMENT;
+        INFIX_POWERS[BANG_EQUAL.ordinal()] = EQUALITY;
+        INFIX_POWERS[EQUAL_EQUAL.ordinal()] = EQUALITY;
+        INFIX_POWERS[LESS.ordinal()] = COMPARISON;
+        INFIX_POWERS[LESS_EQUAL.ordinal()] = COMPARISON;
+        INFIX_POWERS[GREATER.ordinal()] = COMPARISON;
+        INFIX_POWERS[GREATER_EQUAL.ordinal()] = COMPARISON;
+        INFIX_POWERS[MINUS.ordinal()] = TERM;
+        INFIX_POWERS[PLUS.ordinal()] = TERM;
+        INFIX_POWERS[STAR.ordinal()] = FACTOR;
+        INFIX_POWERS[SLASH.ordinal()] = FACTOR;
+    }
 
-    private final List<Token> tokens;
-    private int current = 0;
+    private final TokenSource tokens;
+    private final ErrorReporter errors;
 
     public Parser(List<Token> tokens) {
+        this(tokens, new ErrorReporter(System.err));
+    }
+
+    public Parser(List<Token> tokens, ErrorReporter errors) {
+        this(TokenSource.of(tokens), errors);
+    }
+
+    Parser(TokenSource tokens) {
+        this(tokens, new ErrorReporter(System.err));
+    }
+
+    Parser(TokenSource tokens, ErrorReporter errors) {
         this.tokens = tokens;
+        this.errors = errors;
     }
 
     public List<Stmt> parse () {
         List<Stmt> statements = new ArrayList<>();
-        while (!isAtEnd()) {
+        // Past the error limit, further errors would not be reported anyway.
+        while (!isAtEnd() && !errors.isFull()) {
             statements.add(declaration());
         }
         return statements;
     }
 
+    /**
+     * Whether all the top-level declarations have been parsed.
+     */
+    public boolean isDone () {
+        return isAtEnd();
+    }
+
+    /**
+     * Parses the next top-level declaration only, so that it can be executed before the rest of the program is read.
+     * Returns {@code null} on a syntax error, after having reported it and skipped to the next declaration.
+     */
+    public Stmt parseDeclaration () {
+        return declaration();
+    }
+
+    /**
+     * Parses a declaration, blocks included. Nested blocks do not recurse: the statements of the blocks enclosing
+     * the innermost one wait on a stack, so that nesting depth is only bounded by memory.
+     */
     private Stmt declaration () {
+        if (!check(LEFT_BRACE)) return statementDeclaration();
+        tokens.advance();
+        List<List<Stmt>> blocks = new ArrayList<>();
+        blocks.add(new ArrayList<>());
+        for (;;) {
+            List<Stmt> block = blocks.get(blocks.size() - 1);
+            if (match(LEFT_BRACE)) {
+                blocks.add(new ArrayList<>());
+            } else if (!check(RIGHT_BRACE) && !isAtEnd()) {
+                block.add(statementDeclaration());
+            } else {
+                Stmt closed = closeBlock(block);
+                blocks.remove(blocks.size() - 1);
+                if (blocks.isEmpty()) return closed;
+                blocks.get(blocks.size() - 1).add(closed);
+            }
+        }
+    }
+
+    /**
+     * Parses a declaration other than a block.
+     */
+    private Stmt statementDeclaration () {
         try {
             if (match(VAR)) return varDeclaration();
             return statement();
@@ -33,6 +117,16 @@ public final class Parser {
         }
     }
 
+    private Stmt closeBlock (List<Stmt> statements) {
+        try {
+            consume(RIGHT_BRACE, "Expect '}' after block.");
+            return new Stmt.Block(statements);
+        } catch (ParseError error) {
+            synchronize();
+            return null;
+        }
+    }
+
     private Stmt varDeclaration() {
         Token name = advance();
         Expr initializer = match(EQUAL) ? expression() : null;
@@ -41,16 +135,16 @@ public final class Parser {
     }
 
     private Stmt statement () {
-        if (match(PRINT)) return printStatement();
-        if (match(LEFT_BRACE)) return new Stmt.Block(block());
+        if (check(PRINT)) return printStatement();
         return expressionStatement();
     }
 
     private Stmt printStatement() {
-        // print statement already consumed in 'match' call
+        int line = tokens.peekLine();
+        tokens.advance();
         Expr value = expression();
         consume(SEMICOLON, "Expect '; after value.");
-        return new Stmt.Print(value);
+        return new Stmt.Print(value, line);
     }
 
     private Stmt expressionStatement() {
@@ -60,165 +154,141 @@ public final class Parser {
         return new Stmt.Expression(value);
     }
 
-    private List<Stmt> block() {
-        List<Stmt> statements = new ArrayList<>();
-
-        while (!check(RIGHT_BRACE) && !isAtEnd()) {
-            statements.add(declaration());
-        }
-
-        consume(RIGHT_BRACE, "Expect '}' after block.");
-        return statements;
-    }
-
+    /**
+     * Parses an expression without recursing, so that nesting depth is only bounded by memory: operands and the
+     * operators still waiting for their right operand are kept on stacks. An operator is applied once the next one
+     * binds less tightly, or as tightly for left-associative ones; assignment, the loosest, is right-associative. Open
+     * groupings sit on the operator stack as {@code null}, the prefix operator applying to each of them, if any, on
+     * another stack.
+     */
     private Expr expression () {
-        return assignment();
-    }
-
-    private Expr assignment() {
-        // Assignment targets are always valid standalone expressions: evaluate the left-hand side of the assignment
-        // expression and check if it is a valid assignment target later.
-        Expr expr = equality();
-
-        if (match(EQUAL)) {
-            Token equals = previous();
-            Expr value = assignment(); // The assignment value.
-
-            if (expr instanceof Expr.Variable variableExpr) {
-                Token name = variableExpr.name;
-                return new Expr.Assign(name, value);
+        List<Expr> operands = new ArrayList<>();
+        List<Token> operators = new ArrayList<>();
+        List<Token> groupPrefixes = new ArrayList<>();
+        for (;;) {
+            // A unary operator takes a primary expression as its operand.
+            TokenType type = tokens.peekType();
+            Token prefix = type == BANG || type == MINUS ? advance() : null;
+            if (match(LEFT_PAREN)) {
+                operators.add(null);
+                groupPrefixes.add(prefix);
+                continue;
             }
+            Expr operand = primary();
+            operands.add(prefix == null ? operand : new Expr.Unary(prefix, operand));
+
+            // Infix operators and the ends of groupings following the operand.
+            for (;;) {
+                int power = INFIX_POWERS[tokens.peekType().ordinal()];
+                while (!operators.isEmpty() && last(operators) != null) {
+                    int previous = INFIX_POWERS[last(operators).type.ordinal()];
+                    if (previous < power || previous == power && power == ASSIGNMENT) break;
+                    Token operator = removeLast(operators);
+                    Expr right = removeLast(operands);
+                    Expr left = removeLast(operands);
+                    operands.add(operator.type == EQUAL ? assignment(left, operator, right)
+                            : new Expr.Binary(left, operator, right));
+                }
+                if (power > 0) {
+                    operators.add(advance());
+                    break;
+                }
+                if (operators.isEmpty()) return operands.get(0);
 
-            error(equals, "Invalid assignment target.");
-        }
-        return expr;
-    }
-
-    private Expr equality () {
-        Expr expr = comparison();
-        while (match(BANG_EQUAL, EQUAL_EQUAL)) {
-            Token operator = previous();
-            Expr right = comparison();
-            expr = new Expr.Binary(expr, operator, right);
+                consume(RIGHT_PAREN, "Expect ')' after expression.");
+                removeLast(operators);
+                Expr group = new Expr.Grouping(removeLast(operands));
+                Token groupPrefix = removeLast(groupPrefixes);
+                operands.add(groupPrefix == null ? group : new Expr.Unary(groupPrefix, group));
+            }
         }
-        return expr;
     }
 
-    private Expr comparison () {
-        Expr expr = term();
-        while (match(LESS, LESS_EQUAL, GREATER, GREATER_EQUAL)) {
-            Token operator = previous();
-            Expr right = term();
-            expr = new Expr.Binary(expr, operator, right);
+    private Expr assignment (Expr target, Token equals, Expr value) {
+        // Assignment targets are always valid standalone expressions: the left-hand side of the assignment expression
+        // has been parsed as such, check if it is a valid assignment target now.
+        if (target instanceof Expr.Variable variableExpr) {
+            return new Expr.Assign(variableExpr.name, value);
         }
-        return expr;
+        error(equals, "Invalid assignment target.");
+        return target;
     }
 
-    private Expr term () {
-        Expr expr = factor();
-        while (match(MINUS, PLUS)) {
-            Token operator = previous();
-            Expr right = factor();
-            expr = new Expr.Binary(expr, operator, right);
-        }
+    private Expr primary () {
+        int line = tokens.peekLine();
+        Expr expr = switch (tokens.peekType()) {
+            case FALSE -> new Expr.Literal(false, line);
+            case TRUE -> new Expr.Literal(true, line);
+            case NIL -> new Expr.Literal(null, line);
+            case NUMBER, STRING -> new Expr.Literal(peek().literal, line);
+            case IDENTIFIER -> new Expr.Variable(peek());
+            default -> throw error(peek(), "Expect expression.");
+        };
+        tokens.advance();
         return expr;
     }
 
-    private Expr factor () {
-        Expr expr = unary();
-        while (match(STAR, SLASH)) {
-            Token operator = previous();
-            Expr right = unary();
-            expr = new Expr.Binary(expr, operator, right);
-        }
-        return expr;
+    private static <T> T last (List<T> stack) {
+        return stack.get(stack.size() - 1);
     }
 
-    private Expr unary() {
-        if (match(BANG, MINUS)) {
-            Token operator = previous();
-            Expr right = primary();
-            return new Expr.Unary(operator, right);
-        }
-        return primary();
+    private static <T> T removeLast (List<T> stack) {
+        return stack.remove(stack.size() - 1);
     }
 
-    private Expr primary() {
-        if (match(FALSE)) return new Expr.Literal(false);
-        if (match(TRUE)) return new Expr.Literal(true);
-        if (match(NIL)) return new Expr.Literal(null);
-
-        if (match(NUMBER, STRING)) {
-            return new Expr.Literal(previous().literal);
+    private void consume(TokenType type, String message) {
+        if (check(type)) {
+            tokens.advance();
+            return;
         }
-
-        if (match(IDENTIFIER)) {
-            return new Expr.Variable(previous());
-        }
-
-        if (match(LEFT_PAREN)) {
-            Expr expr = expression();
-            consume(RIGHT_PAREN, "Expect ')' after expression.");
-            return new Expr.Grouping(expr);
-        }
-
-        throw error(peek(), "Expect expression.");
-    }
-
-    private Token consume(TokenType type, String message) {
-        if (check(type)) return advance();
         throw error(peek(), message);
     }
 
     private ParseError error (Token token, String message) {
-        Lox.error(token, message);
+        errors.error(token, message);
         return new ParseError();
     }
 
     private void synchronize () {
-        advance();
-        // Consume tokens until we think we are starting a new statement.
+        tokens.advance();
+        // Consume tokens until we think we are starting a new statement, without materializing the ones skipped.
         while (!isAtEnd()) {
-            if (previous().type == SEMICOLON) return;
+            if (tokens.previousType() == SEMICOLON) return;
 
-            switch (peek().type) {
+            switch (tokens.peekType()) {
                 case CLASS, FOR, FUN, IF, PRINT, RETURN, VAR, WHILE -> {
                     return;
                 }
-                default -> advance();
+                default -> tokens.advance();
             }
         }
     }
 
-    private boolean match (TokenType... types) {
-       for (TokenType type: types) {
-           if (check(type)) {
-               advance();
-               return true;
-           }
-       }
-       return false;
+    private boolean match (TokenType type) {
+        if (!check(type)) return false;
+        tokens.advance();
+        return true;
     }
 
     private boolean check (TokenType type) {
         if (isAtEnd()) return false;
-        return peek().type == type;
+        return tokens.peekType() == type;
     }
 
     private Token advance () {
-        if (!isAtEnd()) current++;
+        tokens.advance();
         return previous();
     }
 
     private boolean isAtEnd() {
-        return peek().type == EOF;
+        return tokens.peekType() == EOF;
     }
 
     private Token peek () {
-        return tokens.get(current);
+        return tokens.peek();
     }
 
     private Token previous () {
-        return tokens.get(current - 1);
+        return tokens.previous();
     }
 }
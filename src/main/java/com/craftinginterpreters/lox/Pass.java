@@ -0,0 +1,12 @@
+package com.craftinginterpreters.lox;
+
+import java.util.List;
+
+/**
+ * An optimization pass over a parsed, not yet resolved, program.
+ */
+interface Pass {
+    String name ();
+
+    List<Stmt> run (List<Stmt> statements);
+}
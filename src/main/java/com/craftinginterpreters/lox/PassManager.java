@@ -0,0 +1,47 @@
+package com.craftinginterpreters.lox;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Runs the enabled optimization passes over parsed programs, always in the same order: constant folding first since
+ * it makes the most groupings and expression statements trivial, then grouping and dead expression elimination.
+ * No pass is enabled by default.
+ */
+public final class PassManager {
+    private final List<Pass> passes = List.of(
+        new ConstantFolding(),
+        new GroupingElimination(),
+        new DeadExpressionElimination()
+    );
+    private final Set<String> enabled = new HashSet<>();
+
+    /**
+     * Enables the pass with the given name, or all of them for {@code "all"}.
+     *
+     * @return whether the name denotes a pass.
+     */
+    public boolean enable (String name) {
+        if (name.equals("all")) {
+            passes.forEach(pass -> enabled.add(pass.name()));
+            return true;
+        }
+        for (Pass pass : passes) {
+            if (pass.name().equals(name)) {
+                enabled.add(name);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public List<Stmt> run (List<Stmt> statements) {
+        for (Pass pass : passes) {
+            if (enabled.contains(pass.name())) {
+                statements = pass.run(statements);
+            }
+        }
+        return statements;
+    }
+}
@@ -0,0 +1,150 @@
+package com.craftinginterpreters.lox;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.lang.String.format;
+
+/**
+ * Execution counts and times of the statements and expressions run by a {@link ProfilingInterpreter}, recorded per
+ * path of nested nodes from a top-level statement. Paths give the collapsed stacks read by flame graph tools; the
+ * hot-spot report aggregates them by kind of node and source line.
+ */
+public final class Profile {
+    private static final int REPORTED_HOT_SPOTS = 30;
+
+    private final Path root = new Path(null, null, "", 0);
+    private Path current = root;
+
+    /**
+     * Starts timing a node, unless it is already the innermost one (e.g. an operand first evaluated as a number).
+     *
+     * @return whether {@link #exit()} must be called once the node is done.
+     */
+    boolean enter (Object node) {
+        if (current.node == node) return false;
+        long now = System.nanoTime();
+        Path path = current.children.get(node);
+        if (path == null) {
+            // Empty blocks are on the line of their parent.
+            int line = AstLines.line(node);
+            if (line < 0) line = current.line;
+            path = new Path(current, node, format("%s (line %d)", label(node), line), line);
+            current.children.put(node, path);
+        }
+        path.start = now;
+        path.childNanos = 0;
+        current = path;
+        return true;
+    }
+
+    void exit () {
+        long elapsed = System.nanoTime() - current.start;
+        current.count++;
+        current.totalNanos += elapsed;
+        current.selfNanos += elapsed - current.childNanos;
+        current = current.parent;
+        current.childNanos += elapsed;
+    }
+
+    /**
+     * Prints the nodes taking the most time by themselves, aggregated by kind of node and line.
+     */
+    public void writeReport (PrintStream out) {
+        Map<String, HotSpot> hotSpots = new HashMap<>();
+        collect(root, hotSpots);
+        List<HotSpot> sorted = new ArrayList<>(hotSpots.values());
+        sorted.sort(Comparator.comparingLong((HotSpot hotSpot) -> hotSpot.selfNanos).reversed());
+
+        out.println(format("%10s %10s %12s  %s", "self ms", "total ms", "count", "node"));
+        for (HotSpot hotSpot : sorted.subList(0, Math.min(REPORTED_HOT_SPOTS, sorted.size()))) {
+            out.println(format("%10.3f %10.3f %12d  %s",
+                hotSpot.selfNanos / 1e6, hotSpot.totalNanos / 1e6, hotSpot.count, hotSpot.label));
+        }
+        if (sorted.size() > REPORTED_HOT_SPOTS) {
+            out.println(format("(%d more)", sorted.size() - REPORTED_HOT_SPOTS));
+        }
+    }
+
+    private static void collect (Path path, Map<String, HotSpot> hotSpots) {
+        for (Path child : path.children.values()) {
+            HotSpot hotSpot = hotSpots.computeIfAbsent(child.label, HotSpot::new);
+            hotSpot.count += child.count;
+            hotSpot.selfNanos += child.selfNanos;
+            hotSpot.totalNanos += child.totalNanos;
+            collect(child, hotSpots);
+        }
+    }
+
+    /**
+     * Writes one line per path, its frames separated by semicolons and followed by its self time in nanoseconds, the
+     * collapsed stack format of flame graph tools.
+     */
+    public void writeCollapsedStacks (Writer writer) throws IOException {
+        writeCollapsedStacks(writer, root, "");
+    }
+
+    private static void writeCollapsedStacks (Writer writer, Path path, String stack) throws IOException {
+        for (Path child : path.children.values()) {
+            String childStack = stack.isEmpty() ? child.label : stack + ";" + child.label;
+            if (child.selfNanos > 0) {
+                writer.write(childStack + " " + child.selfNanos + "\n");
+            }
+            writeCollapsedStacks(writer, child, childStack);
+        }
+    }
+
+    private static String label (Object node) {
+        if (node instanceof Stmt.Block) return "block";
+        if (node instanceof Stmt.Expression) return "expression statement";
+        if (node instanceof Stmt.Print) return "print";
+        if (node instanceof Stmt.Var statement) return "var " + statement.name.lexeme;
+        if (node instanceof Expr.Assign expr) return "assign " + expr.name.lexeme;
+        if (node instanceof Expr.Binary expr) return "binary " + expr.operator.lexeme;
+        if (node instanceof Expr.Grouping) return "grouping";
+        if (node instanceof Expr.Literal) return "literal";
+        if (node instanceof Expr.Unary expr) return "unary " + expr.operator.lexeme;
+        if (node instanceof Expr.Variable expr) return "variable " + expr.name.lexeme;
+        return node.getClass().getSimpleName();
+    }
+
+    private static final class Path {
+        final Path parent;
+        final Object node;
+        final String label;
+        final int line;
+        final Map<Object, Path> children = new IdentityHashMap<>();
+
+        long count = 0;
+        long totalNanos = 0;
+        long selfNanos = 0;
+        // State of the execution in progress.
+        long start;
+        long childNanos;
+
+        Path (Path parent, Object node, String label, int line) {
+            this.parent = parent;
+            this.node = node;
+            this.label = label;
+            this.line = line;
+        }
+    }
+
+    private static final class HotSpot {
+        final String label;
+        long count = 0;
+        long totalNanos = 0;
+        long selfNanos = 0;
+
+        HotSpot (String label) {
+            this.label = label;
+        }
+    }
+}
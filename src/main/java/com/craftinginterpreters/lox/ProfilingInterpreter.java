@@ -0,0 +1,47 @@
+package com.craftinginterpreters.lox;
+
+/**
+ * Tree-walking interpreter recording in a {@link Profile} how many times and for how long every statement and
+ * expression runs. Being a separate engine, profiling costs nothing when it is not enabled.
+ */
+final class ProfilingInterpreter extends Interpreter {
+    private final Profile profile;
+
+    ProfilingInterpreter (OutputSink out, ErrorReporter errors, Profile profile) {
+        super(out, errors);
+        this.profile = profile;
+    }
+
+    @Override
+    protected void execute (Stmt statement) {
+        if (!profile.enter(statement)) {
+            super.execute(statement);
+            return;
+        }
+        try {
+            super.execute(statement);
+        } finally {
+            profile.exit();
+        }
+    }
+
+    @Override
+    protected Object evaluate (Expr expression) {
+        if (!profile.enter(expression)) return super.evaluate(expression);
+        try {
+            return super.evaluate(expression);
+        } finally {
+            profile.exit();
+        }
+    }
+
+    @Override
+    protected double evaluateNumber (Expr expression) {
+        if (!profile.enter(expression)) return super.evaluateNumber(expression);
+        try {
+            return super.evaluateNumber(expression);
+        } finally {
+            profile.exit();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.craftinginterpreters.lox;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A resolved program flattened into a single {@code int} array, four words per node, instead of a graph of
+ * {@link Expr} and {@link Stmt} objects. Children are referred to by node index, values and global names by index in
+ * a constant pool, and the statements of blocks by a range of a separate list array. Groupings only change how
+ * expressions are parsed and have no node of their own.
+ *
+ * <p>The first word of a node holds its kind and, for operators, the ordinal of their token type in its second byte.
+ * The other words depend on the kind:
+ * <pre>
+ *   LITERAL        constant
+ *   GLOBAL         name constant, -, line
+ *   LOCAL          depth, slot
+ *   ASSIGN_GLOBAL  value, name constant, line
+ *   ASSIGN_LOCAL   value, depth, slot
+ *   UNARY          operand, -, line
+ *   BINARY         left, right, line
+ *   EXPRESSION     expression
+ *   PRINT          expression
+ *   VAR_GLOBAL     initializer or -1, name constant
+ *   VAR_LOCAL      initializer or -1, slot
+ *   BLOCK          first statement in the lists, statement count, slots
+ * </pre>
+ */
+final class ProgramArena {
+    static final int LITERAL = 0;
+    static final int GLOBAL = 1;
+    static final int LOCAL = 2;
+    static final int ASSIGN_GLOBAL = 3;
+    static final int ASSIGN_LOCAL = 4;
+    static final int UNARY = 5;
+    static final int BINARY = 6;
+    static final int EXPRESSION = 7;
+    static final int PRINT = 8;
+    static final int VAR_GLOBAL = 9;
+    static final int VAR_LOCAL = 10;
+    static final int BLOCK = 11;
+
+    private static final TokenType[] TYPES = TokenType.values();
+    static final int WORDS = 4;
+
+    int[] nodes = new int[64 * WORDS];
+    int nodeCount = 0;
+    // Statements of the blocks, each block's in a range, followed by the top-level ones.
+    int[] lists = new int[64];
+    int listCount = 0;
+    final List<Object> constants = new ArrayList<>();
+    private final Map<Object, Integer> constantIndices = new HashMap<>();
+    // The top-level statements, in the lists.
+    int first;
+    int count;
+
+    private ProgramArena () {}
+
+    /**
+     * Flattens resolved statements.
+     */
+    static ProgramArena of (List<Stmt> statements) {
+        ProgramArena arena = new ProgramArena();
+        int[] roots = arena.statements(statements);
+        arena.first = arena.listCount;
+        arena.count = roots.length;
+        arena.addList(roots);
+        return arena;
+    }
+
+    static int kind (int[] nodes, int node) {
+        return nodes[node * WORDS] & 0xFF;
+    }
+
+    static TokenType operator (int[] nodes, int node) {
+        return TYPES[nodes[node * WORDS] >>> 8];
+    }
+
+    private int[] statements (List<Stmt> statements) {
+        int[] indices = new int[statements.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = statement(statements.get(i));
+        }
+        return indices;
+    }
+
+    private int statement (Stmt statement) {
+        if (statement instanceof Stmt.Expression expression) {
+            return add(EXPRESSION, expression(expression.expression), 0, 0);
+        }
+        if (statement instanceof Stmt.Print print) {
+            return add(PRINT, expression(print.expression), 0, 0);
+        }
+        if (statement instanceof Stmt.Var var) {
+            int initializer = var.initializer == null ? -1 : expression(var.initializer);
+            if (var.slot < 0) return add(VAR_GLOBAL, initializer, name(var.name), 0);
+            return add(VAR_LOCAL, initializer, var.slot, 0);
+        }
+        Stmt.Block block = (Stmt.Block) statement;
+        int[] children = statements(block.statements);
+        int start = listCount;
+        addList(children);
+        return add(BLOCK, start, children.length, block.slots);
+    }
+
+    private int expression (Expr expression) {
+        if (expression instanceof Expr.Literal literal) {
+            return add(LITERAL, constant(literal.value), 0, 0);
+        }
+        if (expression instanceof Expr.Grouping grouping) {
+            return expression(grouping.expression);
+        }
+        if (expression instanceof Expr.Variable variable) {
+            if (variable.depth < 0) return add(GLOBAL, name(variable.name), 0, variable.name.line);
+            return add(LOCAL, variable.depth, variable.slot, 0);
+        }
+        if (expression instanceof Expr.Assign assign) {
+            int value = expression(assign.value);
+            if (assign.depth < 0) return add(ASSIGN_GLOBAL, value, name(assign.name), assign.name.line);
+            return add(ASSIGN_LOCAL, value, assign.depth, assign.slot);
+        }
+        if (expression instanceof Expr.Unary unary) {
+            int operand = expression(unary.right);
+            return add(UNARY | unary.operator.type.ordinal() << 8, operand, 0, unary.operator.line);
+        }
+        Expr.Binary binary = (Expr.Binary) expression;
+        int left = expression(binary.left);
+        int right = expression(binary.right);
+        return add(BINARY | binary.operator.type.ordinal() << 8, left, right, binary.operator.line);
+    }
+
+    private int add (int header, int a, int b, int c) {
+        if (nodeCount * WORDS == nodes.length) {
+            nodes = Arrays.copyOf(nodes, nodes.length * 2);
+        }
+        int base = nodeCount * WORDS;
+        nodes[base] = header;
+        nodes[base + 1] = a;
+        nodes[base + 2] = b;
+        nodes[base + 3] = c;
+        return nodeCount++;
+    }
+
+    private void addList (int[] indices) {
+        if (listCount + indices.length > lists.length) {
+            lists = Arrays.copyOf(lists, Math.max(lists.length * 2, listCount + indices.length));
+        }
+        System.arraycopy(indices, 0, lists, listCount, indices.length);
+        listCount += indices.length;
+    }
+
+    /**
+     * Adds a literal value to the constant pool, reusing the slot of an equal value.
+     */
+    private int constant (Object value) {
+        return addUnique(value, value);
+    }
+
+    /**
+     * Adds the name token of a global variable to the constant pool, sharing one slot between all the tokens with the
+     * same lexeme. The line of the shared token is therefore meaningless: nodes hold their own.
+     */
+    private int name (Token name) {
+        return addUnique(name.symbol(), name);
+    }
+
+    private int addUnique (Object key, Object value) {
+        Integer index = constantIndices.get(key);
+        if (index == null) {
+            index = constants.size();
+            constants.add(value);
+            constantIndices.put(key, index);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,135 @@
+package com.craftinginterpreters.lox;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * On-disk cache of parsed programs, so that running an unchanged script again skips scanning and parsing. Entries
+ * are named after a SHA-256 digest of the interpreter version and the source, and hold a header (magic number,
+ * format version, digest, payload length and checksum) followed by the statements serialized by {@link AstWriter}.
+ * Any entry that cannot be read back is ignored, and the program parsed again.
+ */
+public final class ProgramCache {
+    private static final int MAGIC = 0x4A4C4F58; // "JLOX"
+    // Bump whenever the serialized format or the AST changes.
+    private static final int FORMAT_VERSION = 2;
+    private static final String VERSION = FORMAT_VERSION + "/"
+        + Objects.requireNonNullElse(Lox.class.getPackage().getImplementationVersion(), "dev");
+
+    private final Path directory;
+
+    public ProgramCache (Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * The default cache directory, following the XDG base directory specification.
+     */
+    public static Path defaultDirectory () {
+        String cacheHome = System.getenv("XDG_CACHE_HOME");
+        if (cacheHome == null || cacheHome.isEmpty()) {
+            return Paths.get(System.getProperty("user.home"), ".cache", "jlox");
+        }
+        return Paths.get(cacheHome, "jlox");
+    }
+
+    public byte[] digest (String source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(VERSION.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(source.getBytes(StandardCharsets.UTF_8));
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Loads the statements cached for the source with the given digest.
+     *
+     * @return the statements, or {@code null} if there is no valid entry.
+     */
+    public List<Stmt> load (byte[] digest) {
+        Path path = path(digest);
+        if (!Files.isRegularFile(path)) return null;
+        try {
+            ByteBuffer entry = ByteBuffer.wrap(Files.readAllBytes(path));
+            if (entry.getInt() != MAGIC || entry.getInt() != FORMAT_VERSION) return null;
+            byte[] storedDigest = new byte[digest.length];
+            entry.get(storedDigest);
+            if (!MessageDigest.isEqual(digest, storedDigest)) return null;
+
+            int length = entry.getInt();
+            long checksum = entry.getLong();
+            if (length != entry.remaining()) return null;
+            CRC32 crc = new CRC32();
+            crc.update(entry.array(), entry.position(), length);
+            if (crc.getValue() != checksum) return null;
+
+            ByteArrayInputStream payload = new ByteArrayInputStream(entry.array(), entry.position(), length);
+            return new AstReader(new DataInputStream(payload)).read();
+        } catch (IOException | RuntimeException | StackOverflowError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Stores the statements parsed from the source with the given digest. Failures are ignored: the cache is only an
+     * optimization.
+     */
+    public void store (byte[] digest, List<Stmt> statements) {
+        try {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream();
+            DataOutputStream payloadOutput = new DataOutputStream(payload);
+            new AstWriter(payloadOutput).write(statements);
+            payloadOutput.flush();
+            byte[] bytes = payload.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+
+            ByteArrayOutputStream entry = new ByteArrayOutputStream(bytes.length + 64);
+            DataOutputStream output = new DataOutputStream(entry);
+            output.writeInt(MAGIC);
+            output.writeInt(FORMAT_VERSION);
+            output.write(digest);
+            output.writeInt(bytes.length);
+            output.writeLong(crc.getValue());
+            output.write(bytes);
+            output.flush();
+
+            // Write to a temporary file first so that concurrent runs never see a partial entry.
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, "entry", ".tmp");
+            try {
+                Files.write(temporary, entry.toByteArray());
+                Files.move(temporary, path(digest),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException | RuntimeException | StackOverflowError e) {
+            // Leave the cache alone.
+        }
+    }
+
+    private Path path (byte[] digest) {
+        return directory.resolve(HexFormat.of().formatHex(digest) + ".ast");
+    }
+}
@@ -0,0 +1,172 @@
+package com.craftinginterpreters.lox;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Static pass run between parsing and interpretation that binds every local variable to a (depth, slot) pair.
+ * Top-level variables are globals and stay late-bound by name (depth -1), so that prompt lines can refer to variables
+ * defined by previous lines. Blocks that do not declare any variable get no scope at all, which means they do not
+ * count towards the depth of the variables they reference and allocate no {@link Frame} at runtime.
+ *
+ * <p>Visiting a node does not recurse into its children but pushes them on a stack of pending work, along with what
+ * must be done once they are resolved, so that deeply nested programs do not overflow the Java stack.
+ */
+public final class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
+    // Innermost scope last, each scope maps the variables declared so far to their slot.
+    private final List<Map<Symbol, Integer>> scopes = new ArrayList<>();
+    // Nodes left to resolve, and actions to run once the nodes above them are resolved, next one first.
+    private final Deque<Object> work = new ArrayDeque<>();
+
+    public void resolve (List<Stmt> statements) {
+        schedule(statements);
+        while (!work.isEmpty()) {
+            Object next = work.pop();
+            if (next instanceof Stmt statement) {
+                statement.accept(this);
+            } else if (next instanceof Expr expression) {
+                expression.accept(this);
+            } else {
+                ((Runnable) next).run();
+            }
+        }
+    }
+
+    @Override
+    public Void visitBlockStmt(Stmt.Block stmt) {
+        stmt.slots = countDeclarations(stmt.statements);
+        if (stmt.slots == 0) {
+            schedule(stmt.statements);
+            return null;
+        }
+        scopes.add(new HashMap<>());
+        work.push((Runnable) () -> scopes.remove(scopes.size() - 1));
+        schedule(stmt.statements);
+        return null;
+    }
+
+    @Override
+    public Void visitExpressionStmt(Stmt.Expression stmt) {
+        schedule(stmt.expression);
+        return null;
+    }
+
+    @Override
+    public Void visitPrintStmt(Stmt.Print stmt) {
+        schedule(stmt.expression);
+        return null;
+    }
+
+    @Override
+    public Void visitVarStmt(Stmt.Var stmt) {
+        // Resolve the initializer first: 'var a = a;' refers to the enclosing 'a'.
+        work.push((Runnable) () -> declare(stmt));
+        if (stmt.initializer != null) {
+            schedule(stmt.initializer);
+        }
+        return null;
+    }
+
+    private void declare (Stmt.Var stmt) {
+        if (scopes.isEmpty()) return;
+
+        // Re-definitions in the same scope reuse the existing slot.
+        Map<Symbol, Integer> scope = scopes.get(scopes.size() - 1);
+        Integer slot = scope.get(stmt.name.symbol());
+        if (slot == null) {
+            slot = scope.size();
+            scope.put(stmt.name.symbol(), slot);
+        }
+        stmt.slot = slot;
+    }
+
+    @Override
+    public Void visitAssignExpr(Expr.Assign expr) {
+        schedule(expr.value);
+        int depth = depthOf(expr.name);
+        if (depth >= 0) {
+            expr.depth = depth;
+            expr.slot = slotOf(depth, expr.name);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitBinaryExpr(Expr.Binary expr) {
+        schedule(expr.right);
+        schedule(expr.left);
+        return null;
+    }
+
+    @Override
+    public Void visitGroupingExpr(Expr.Grouping expr) {
+        schedule(expr.expression);
+        return null;
+    }
+
+    @Override
+    public Void visitLiteralExpr(Expr.Literal expr) {
+        return null;
+    }
+
+    @Override
+    public Void visitUnaryExpr(Expr.Unary expr) {
+        schedule(expr.right);
+        return null;
+    }
+
+    @Override
+    public Void visitVariableExpr(Expr.Variable expr) {
+        int depth = depthOf(expr.name);
+        if (depth >= 0) {
+            expr.depth = depth;
+            expr.slot = slotOf(depth, expr.name);
+        }
+        return null;
+    }
+
+    // Statements are pushed last first, so that they are resolved in order.
+    private void schedule (List<Stmt> statements) {
+        for (int i = statements.size() - 1; i >= 0; i--) {
+            schedule(statements.get(i));
+        }
+    }
+
+    private void schedule (Stmt statement) {
+        work.push(statement);
+    }
+
+    private void schedule (Expr expression) {
+        work.push(expression);
+    }
+
+    private int depthOf (Token name) {
+        for (int i = scopes.size() - 1; i >= 0; i--) {
+            if (scopes.get(i).containsKey(name.symbol())) {
+                return scopes.size() - 1 - i;
+            }
+        }
+        // Not found: assume it is global.
+        return -1;
+    }
+
+    private int slotOf (int depth, Token name) {
+        return scopes.get(scopes.size() - 1 - depth).get(name.symbol());
+    }
+
+    private static int countDeclarations (List<Stmt> statements) {
+        Set<Symbol> names = new HashSet<>();
+        for (Stmt statement : statements) {
+            if (statement instanceof Stmt.Var varStmt) {
+                names.add(varStmt.name.symbol());
+            }
+        }
+        return names.size();
+    }
+}
@@ -4,7 +4,8 @@ public class RuntimeError extends RuntimeException {
 
     final Token token;
     public RuntimeError(Token token, String message) {
-        super(message);
+        // Runtime errors are reported to the script author, the interpreter's stack is of no use to them.
+        super(message, null, false, false);
         this.token = token;
     }
 }
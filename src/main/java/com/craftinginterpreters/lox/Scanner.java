@@ -12,31 +12,78 @@ import static java.util.Map.entry;
 @RequiredArgsConstructor
 public final class Scanner {
 
-    private static final Map<String, TokenType> KEYWORDS = Map.ofEntries(
-            entry("and", AND),
-            entry("class", CLASS),
-            entry("else", ELSE),
-            entry("false", FALSE),
-            entry("for", FOR),
-            entry("fun", FUN),
-            entry("if", IF),
-            entry("nil", NIL),
-            entry("or", OR),
-            entry("print", PRINT),
-            entry("return", RETURN),
-            entry("super", SUPER),
-            entry("this", THIS),
-            entry("true", TRUE),
-            entry("var", VAR),
-            entry("while", WHILE)
-    );
-
-    private final String source;
+    // Lexemes of the tokens that always have the same one, indexed by token type ordinal.
+    private static final String[] FIXED_LEXEMES = new String[TokenType.values().length];
+
+    static {
+        Map<TokenType, String> lexemes = Map.ofEntries(
+            entry(LEFT_PAREN, "("),
+            entry(RIGHT_PAREN, ")"),
+            entry(LEFT_BRACE, "{"),
+            entry(RIGHT_BRACE, "}"),
+            entry(COMMA, ","),
+            entry(DOT, "."),
+            entry(MINUS, "-"),
+            entry(PLUS, "+"),
+            entry(SEMICOLON, ";"),
+            entry(SLASH, "/"),
+            entry(STAR, "*"),
+            entry(BANG, "!"),
+            entry(BANG_EQUAL, "!="),
+            entry(EQUAL, "="),
+            entry(EQUAL_EQUAL, "=="),
+            entry(GREATER, ">"),
+            entry(GREATER_EQUAL, ">="),
+            entry(LESS, "<"),
+            entry(LESS_EQUAL, "<="),
+            entry(AND, "and"),
+            entry(CLASS, "class"),
+            entry(ELSE, "else"),
+            entry(FALSE, "false"),
+            entry(FUN, "fun"),
+            entry(FOR, "for"),
+            entry(IF, "if"),
+            entry(NIL, "nil"),
+            entry(OR, "or"),
+            entry(PRINT, "print"),
+            entry(RETURN, "return"),
+            entry(SUPER, "super"),
+            entry(THIS, "this"),
+            entry(TRUE, "true"),
+            entry(VAR, "var"),
+            entry(WHILE, "while"),
+            entry(EOF, "")
+        );
+        lexemes.forEach((type, lexeme) -> FIXED_LEXEMES[type.ordinal()] = lexeme);
+    }
+
+    // A string, or the window of a StreamingScanner over its input.
+    private final CharSequence source;
+    private final ErrorReporter errors;
     private final List<Token> tokens = new ArrayList<>();
+    // When set, tokens are appended to the buffer instead of the list.
+    private TokenBuffer buffer = null;
 
     private int start = 0;
     private int current = 0;
     private int line = 1;
+    // Where a chunk scanned by a ParallelScanner ends, and whether a string or a block comment ran into it.
+    private int limit = Integer.MAX_VALUE;
+    private boolean cut = false;
+
+    public Scanner (String source) {
+        this(source, new ErrorReporter(System.err));
+    }
+
+    /**
+     * A scanner starting at an offset of the source, on the given line, for {@link #next()} to resume scanning in the
+     * middle of a document.
+     */
+    Scanner (String source, ErrorReporter errors, int offset, int line) {
+        this(source, errors);
+        this.current = offset;
+        this.line = line;
+    }
 
     List<Token> scanTokens () {
         while (!isAtEnd()) {
@@ -47,6 +94,80 @@ public final class Scanner {
         return tokens;
     }
 
+    /**
+     * Scans the source into a compact {@link TokenBuffer}, which does not allocate any object per token.
+     */
+    TokenBuffer scanTokenBuffer () {
+        buffer = new TokenBuffer(source.toString());
+        while (!isAtEnd()) {
+            start = current;
+            scanToken();
+        }
+        buffer.add(EOF, current, 0, line);
+        return buffer;
+    }
+
+    /**
+     * Scans the next token only, returning the {@link TokenType#EOF} token again and again at the end of the source.
+     */
+    Token next () {
+        tokens.clear();
+        while (tokens.isEmpty()) {
+            if (isAtEnd()) return new Token(EOF, "", null, line);
+            start = current;
+            scanToken();
+        }
+        return tokens.get(0);
+    }
+
+    /**
+     * Scans the tokens starting before {@code end} into the buffer, for a {@link ParallelScanner} to scan what follows
+     * a string or a block comment spanning several chunks.
+     */
+    void scanTokens (TokenBuffer buffer, int end) {
+        this.buffer = buffer;
+        while (current < end && !isAtEnd()) {
+            start = current;
+            scanToken();
+        }
+    }
+
+    /**
+     * Scans the tokens of a chunk ending at {@code end} into the buffer, as if the source ended there. A string or a
+     * block comment running into the end of the chunk is left out: scanning then stops at its start.
+     *
+     * @return false if scanning stopped at such a string or comment.
+     */
+    boolean scanChunk (TokenBuffer buffer, int end) {
+        this.buffer = buffer;
+        this.limit = end;
+        while (!isAtEnd()) {
+            start = current;
+            int startLine = line;
+            scanToken();
+            if (cut) {
+                current = start;
+                line = startLine;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The offset following the last token scanned.
+     */
+    int position () {
+        return current;
+    }
+
+    /**
+     * The line the scanner is on.
+     */
+    int line () {
+        return line;
+    }
+
     private void scanToken() {
         char c = advance();
         switch (c) {
@@ -88,19 +209,56 @@ public final class Scanner {
                 } else if (isAlpha(c)) {
                     identifierOrKeyword();
                 } else {
-                    Lox.error(line, "Unexpected character.");
+                    errors.error(line, "Unexpected character.");
                 }
             }
         }
     }
 
     private void addToken (TokenType type) {
-        addToken(type, null);
+        if (buffer != null) {
+            buffer.add(type, start, current - start, line);
+            return;
+        }
+        tokens.add(token(source, type, start, current, line));
+    }
+
+    /**
+     * Materializes a token spanning {@code [start, end)} in the source.
+     */
+    static Token token (CharSequence source, TokenType type, int start, int end, int line) {
+        if (type == IDENTIFIER) {
+            Symbol symbol = Symbol.intern(source, start, end);
+            return new Token(type, symbol.name, symbol, line);
+        }
+        return new Token(type, lexeme(source, type, start, end), literal(source, type, start, end), line);
     }
 
-    private void addToken(TokenType type, Object literal) {
-        String text = source.substring(start, current);
-        tokens.add(new Token(type, text, literal, line));
+    /**
+     * The lexeme of a token spanning {@code [start, end)} in the source. Tokens with a fixed lexeme, e.g. punctuation
+     * and keywords, share a single string.
+     */
+    static String lexeme (CharSequence source, TokenType type, int start, int end) {
+        String lexeme = fixedLexeme(type);
+        return lexeme != null ? lexeme : source.subSequence(start, end).toString();
+    }
+
+    /**
+     * The lexeme shared by all the tokens of the given type, or {@code null} if it depends on the token.
+     */
+    static String fixedLexeme (TokenType type) {
+        return FIXED_LEXEMES[type.ordinal()];
+    }
+
+    /**
+     * The literal value of a token spanning {@code [start, end)} in the source.
+     */
+    static Object literal (CharSequence source, TokenType type, int start, int end) {
+        return switch (type) {
+            case NUMBER -> Numbers.parse(source, start, end);
+            case STRING -> source.subSequence(start + 1, end - 1).toString(); // Trim surrounding quotes.
+            default -> null;
+        };
     }
 
     private boolean match(char expected) {
@@ -126,7 +284,7 @@ public final class Scanner {
     }
 
     private boolean isAtEnd() {
-        return current >= source.length();
+        return current >= limit || current >= source.length();
     }
 
     private void string() {
@@ -135,12 +293,15 @@ public final class Scanner {
             advance();
         }
         if (isAtEnd()) {
-            Lox.error(line, "Unterminated string.");
+            if (current < source.length()) {
+                cut = true;
+                return;
+            }
+            errors.error(line, "Unterminated string.");
             return;
         }
         advance(); // The closing quote.
-        String value = source.substring(start + 1, current - 1); // Trim surrounding quotes.
-        addToken(STRING, value);
+        addToken(STRING);
     }
 
     private void number() {
@@ -154,15 +315,57 @@ public final class Scanner {
                 advance();
             }
         }
-        Double value = Double.parseDouble(source.substring(start, current));
-        addToken(NUMBER, value);
+        addToken(NUMBER);
     }
 
     private void identifierOrKeyword() {
         while (isAlphanumeric(peek())) advance();
-        String text = source.substring(start, current);
-        TokenType type = KEYWORDS.getOrDefault(text, IDENTIFIER);
-        addToken(type);
+        addToken(keywordOrIdentifier(source, start, current));
+    }
+
+    /**
+     * Recognizes keywords in place, without extracting the lexeme from the source.
+     */
+    static TokenType keywordOrIdentifier (CharSequence source, int start, int end) {
+        return switch (source.charAt(start)) {
+            case 'a' -> keyword(source, start, end, "and", AND);
+            case 'c' -> keyword(source, start, end, "class", CLASS);
+            case 'e' -> keyword(source, start, end, "else", ELSE);
+            case 'f' -> {
+                if (end - start < 2) yield IDENTIFIER;
+                yield switch (source.charAt(start + 1)) {
+                    case 'a' -> keyword(source, start, end, "false", FALSE);
+                    case 'o' -> keyword(source, start, end, "for", FOR);
+                    case 'u' -> keyword(source, start, end, "fun", FUN);
+                    default -> IDENTIFIER;
+                };
+            }
+            case 'i' -> keyword(source, start, end, "if", IF);
+            case 'n' -> keyword(source, start, end, "nil", NIL);
+            case 'o' -> keyword(source, start, end, "or", OR);
+            case 'p' -> keyword(source, start, end, "print", PRINT);
+            case 'r' -> keyword(source, start, end, "return", RETURN);
+            case 's' -> keyword(source, start, end, "super", SUPER);
+            case 't' -> {
+                if (end - start < 2) yield IDENTIFIER;
+                yield switch (source.charAt(start + 1)) {
+                    case 'h' -> keyword(source, start, end, "this", THIS);
+                    case 'r' -> keyword(source, start, end, "true", TRUE);
+                    default -> IDENTIFIER;
+                };
+            }
+            case 'v' -> keyword(source, start, end, "var", VAR);
+            case 'w' -> keyword(source, start, end, "while", WHILE);
+            default -> IDENTIFIER;
+        };
+    }
+
+    private static TokenType keyword (CharSequence source, int start, int end, String keyword, TokenType type) {
+        if (end - start != keyword.length()) return IDENTIFIER;
+        for (int i = 0; i < keyword.length(); i++) {
+            if (source.charAt(start + i) != keyword.charAt(i)) return IDENTIFIER;
+        }
+        return type;
     }
 
     private void blockComment() {
@@ -171,7 +374,11 @@ public final class Scanner {
             advance();
         }
         if (isAtEnd()) {
-            Lox.error(line, "Unterminated block comment.");
+            if (current < source.length()) {
+                cut = true;
+                return;
+            }
+            errors.error(line, "Unterminated block comment.");
             return;
         }
         // Consume closing '*/'.
@@ -179,15 +386,15 @@ public final class Scanner {
         advance();
     }
 
-    private boolean isDigit(char c) {
+    static boolean isDigit(char c) {
         return c >= '0' && c <= '9';
     }
 
-    private boolean isAlpha(char c) {
+    static boolean isAlpha(char c) {
         return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c == '_');
     }
 
-    private boolean isAlphanumeric (char c) {
+    static boolean isAlphanumeric (char c) {
         return isAlpha(c) || isDigit(c);
     }
 }
@@ -0,0 +1,211 @@
+package com.craftinginterpreters.lox;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.craftinginterpreters.lox.Values.*;
+
+/**
+ * Tree-walking engine that does not recurse: nodes left to run wait on an explicit work stack, entered once to push
+ * their children and left once the children are done, while the values of evaluated expressions wait on an operand
+ * stack for the node using them. Both stacks live on the heap, so that the nesting depth of a script is only bounded
+ * by memory. Results and runtime errors are the same as the ones of the {@link Interpreter}.
+ */
+public final class StackInterpreter implements Engine {
+    private final OutputSink out;
+    private final ErrorReporter errors;
+    private final Environment globals;
+    private Frame frame = null;
+
+    // Nodes left to run, the next one last, and whether they are to be entered or left.
+    private Object[] work = new Object[64];
+    private boolean[] leaving = new boolean[64];
+    private int workSize = 0;
+    // Values of the expressions evaluated, waiting for the node using them.
+    private Object[] operands = new Object[64];
+    private int operandCount = 0;
+
+    public StackInterpreter () {
+        this(OutputSink.of(System.out), new ErrorReporter(System.err));
+    }
+
+    public StackInterpreter (OutputSink out, ErrorReporter errors) {
+        this(out, errors, new Environment());
+    }
+
+    /**
+     * An interpreter defining its global variables in the given environment, for engines to run the statements they
+     * cannot handle.
+     */
+    StackInterpreter (OutputSink out, ErrorReporter errors, Environment globals) {
+        this.out = out;
+        this.errors = errors;
+        this.globals = globals;
+    }
+
+    @Override
+    public void interpret (List<Stmt> statements) {
+        try {
+            for (Stmt statement : statements) {
+                execute(statement);
+            }
+        } catch (RuntimeError error) {
+            errors.runtimeError(error);
+        }
+    }
+
+    /**
+     * Runs a top-level statement, throwing its runtime error if any.
+     */
+    void execute (Stmt statement) {
+        try {
+            run(statement);
+        } catch (RuntimeError error) {
+            // Leave the scopes and drop the nodes the error interrupted.
+            frame = null;
+            Arrays.fill(work, 0, workSize, null);
+            workSize = 0;
+            Arrays.fill(operands, 0, operandCount, null);
+            operandCount = 0;
+            throw error;
+        }
+    }
+
+    private void run (Stmt statement) {
+        enter(statement);
+        while (workSize > 0) {
+            workSize--;
+            Object node = work[workSize];
+            work[workSize] = null;
+            if (leaving[workSize]) {
+                leave(node);
+            } else {
+                enter(node);
+            }
+        }
+    }
+
+    /**
+     * Runs a node right away if it has no children, and schedules its children followed by itself otherwise.
+     */
+    private void enter (Object node) {
+        if (node instanceof Expr.Literal literal) {
+            push(literal.value);
+        } else if (node instanceof Expr.Variable variable) {
+            push(get(variable));
+        } else if (node instanceof Expr.Binary binary) {
+            if (isLeaf(binary.left) && isLeaf(binary.right)) {
+                // Operands are evaluated in order, so that the left one reports its error first.
+                Object left = leaf(binary.left);
+                push(binary(binary.operator, left, leaf(binary.right)));
+                return;
+            }
+            schedule(binary, true);
+            schedule(binary.right, false);
+            schedule(binary.left, false);
+        } else if (node instanceof Expr.Grouping grouping) {
+            schedule(grouping.expression, false);
+        } else if (node instanceof Expr.Unary unary) {
+            schedule(unary, true);
+            schedule(unary.right, false);
+        } else if (node instanceof Expr.Assign assign) {
+            schedule(assign, true);
+            schedule(assign.value, false);
+        } else if (node instanceof Stmt.Expression statement) {
+            schedule(statement, true);
+            schedule(statement.expression, false);
+        } else if (node instanceof Stmt.Print statement) {
+            schedule(statement, true);
+            schedule(statement.expression, false);
+        } else if (node instanceof Stmt.Var statement) {
+            if (statement.initializer == null) {
+                define(statement, null);
+                return;
+            }
+            schedule(statement, true);
+            schedule(statement.initializer, false);
+        } else if (node instanceof Stmt.Block block) {
+            // Blocks without declarations share the frame of the enclosing scope.
+            if (block.slots > 0) {
+                frame = new Frame(frame, block.slots);
+                schedule(block, true);
+            }
+            for (int i = block.statements.size() - 1; i >= 0; i--) {
+                schedule(block.statements.get(i), false);
+            }
+        }
+    }
+
+    /**
+     * Completes a node once its children are done.
+     */
+    private void leave (Object node) {
+        if (node instanceof Expr.Binary binary) {
+            Object right = pop();
+            push(binary(binary.operator, pop(), right));
+        } else if (node instanceof Expr.Unary unary) {
+            push(unary(unary.operator, pop()));
+        } else if (node instanceof Expr.Assign assign) {
+            // The value stays on the stack as the value of the assignment.
+            Object value = operands[operandCount - 1];
+            if (assign.depth < 0) {
+                globals.assign(assign.name, value);
+            } else {
+                frame.assign(assign.depth, assign.slot, value);
+            }
+        } else if (node instanceof Stmt.Expression) {
+            pop();
+        } else if (node instanceof Stmt.Print) {
+            print(out, pop());
+        } else if (node instanceof Stmt.Var statement) {
+            define(statement, pop());
+        } else if (node instanceof Stmt.Block) {
+            frame = frame.enclosing;
+        }
+    }
+
+    private static boolean isLeaf (Expr expression) {
+        return expression instanceof Expr.Literal || expression instanceof Expr.Variable;
+    }
+
+    private Object leaf (Expr expression) {
+        if (expression instanceof Expr.Literal literal) return literal.value;
+        return get((Expr.Variable) expression);
+    }
+
+    private Object get (Expr.Variable variable) {
+        if (variable.depth < 0) return globals.get(variable.name);
+        return frame.get(variable.depth, variable.slot);
+    }
+
+    private void define (Stmt.Var statement, Object value) {
+        if (statement.slot < 0) {
+            globals.define(statement.name.symbol(), value);
+        } else {
+            frame.define(statement.slot, value);
+        }
+    }
+
+    private void schedule (Object node, boolean leave) {
+        if (workSize == work.length) {
+            work = Arrays.copyOf(work, workSize * 2);
+            leaving = Arrays.copyOf(leaving, workSize * 2);
+        }
+        work[workSize] = node;
+        leaving[workSize] = leave;
+        workSize++;
+    }
+
+    private void push (Object value) {
+        if (operandCount == operands.length) {
+            operands = Arrays.copyOf(operands, operandCount * 2);
+        }
+        operands[operandCount++] = value;
+    }
+
+    private Object pop () {
+        Object value = operands[--operandCount];
+        operands[operandCount] = null;
+        return value;
+    }
+}
@@ -21,6 +21,7 @@ abstract class Stmt {
 		}
 
 		final List<Stmt> statements;
+		int slots = 0;
 	}
 	static class Expression extends Stmt {
 		Expression (Expr expression) {
@@ -35,8 +36,9 @@ abstract class Stmt {
 		final Expr expression;
 	}
 	static class Print extends Stmt {
-		Print (Expr expression) {
+		Print (Expr expression, int line) {
 			this.expression = expression;
+			this.line = line;
 		}
 
 		@Override
@@ -45,6 +47,7 @@ abstract class Stmt {
 		}
 
 		final Expr expression;
+		final int line;
 	}
 	static class Var extends Stmt {
 		Var (Token name, Expr initializer) {
@@ -59,6 +62,7 @@ abstract class Stmt {
 
 		final Token name;
 		final Expr initializer;
+		int slot = -1;
 	}
 
 	 abstract <R> R accept(Visitor<R> visitor);
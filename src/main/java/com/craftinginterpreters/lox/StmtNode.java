@@ -0,0 +1,107 @@
+package com.craftinginterpreters.lox;
+
+import java.util.List;
+
+import static com.craftinginterpreters.lox.Values.print;
+
+/**
+ * Executable statement nodes, the roots of the expression nodes that specialize themselves.
+ */
+abstract class StmtNode extends Node {
+    abstract void execute (Frame frame);
+
+    /**
+     * Statements with a single child expression.
+     */
+    abstract static class WithExpression extends StmtNode {
+        ExprNode expression;
+
+        WithExpression (ExprNode expression) {
+            this.expression = adopt(expression);
+        }
+
+        @Override
+        final void replaceChild (Node child, Node replacement) {
+            expression = (ExprNode) replacement;
+        }
+    }
+
+    static final class Expression extends WithExpression {
+        Expression (ExprNode expression) {
+            super(expression);
+        }
+
+        @Override
+        void execute (Frame frame) {
+            expression.execute(frame);
+        }
+    }
+
+    static final class Print extends WithExpression {
+        private final OutputSink out;
+
+        Print (OutputSink out, ExprNode expression) {
+            super(expression);
+            this.out = out;
+        }
+
+        @Override
+        void execute (Frame frame) {
+            print(out, expression.execute(frame));
+        }
+    }
+
+    static final class DefineGlobal extends WithExpression {
+        private final Environment globals;
+        private final Symbol name;
+
+        DefineGlobal (Environment globals, Symbol name, ExprNode initializer) {
+            super(initializer);
+            this.globals = globals;
+            this.name = name;
+        }
+
+        @Override
+        void execute (Frame frame) {
+            globals.define(name, expression.execute(frame));
+        }
+    }
+
+    static final class DefineLocal extends WithExpression {
+        private final int slot;
+
+        DefineLocal (int slot, ExprNode initializer) {
+            super(initializer);
+            this.slot = slot;
+        }
+
+        @Override
+        void execute (Frame frame) {
+            frame.define(slot, expression.execute(frame));
+        }
+    }
+
+    /**
+     * A block, which only allocates a new frame if it declares variables.
+     */
+    static final class Block extends StmtNode {
+        private final StmtNode[] statements;
+        private final int slots;
+
+        Block (List<StmtNode> statements, int slots) {
+            this.statements = statements.toArray(new StmtNode[0]);
+            this.slots = slots;
+            for (StmtNode statement : this.statements) {
+                adopt(statement);
+            }
+        }
+
+        @Override
+        void execute (Frame frame) {
+            Frame blockFrame = slots == 0 ? frame : new Frame(frame, slots);
+            for (StmtNode statement : statements) {
+                statement.execute(blockFrame);
+            }
+        }
+    }
+}
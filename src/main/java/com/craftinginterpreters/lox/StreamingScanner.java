@@ -0,0 +1,113 @@
+package com.craftinginterpreters.lox;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Scanner pulling characters from a {@link Reader} and producing tokens on demand, for programs too large to be held
+ * in memory. A {@link Scanner} runs over a window of the input, which only buffers the characters following the last
+ * token returned: memory use is bounded by the longest token and the whitespace and comments preceding it. Offsets
+ * are counted from the start of the input, which may not exceed {@link Integer#MAX_VALUE} characters.
+ */
+final class StreamingScanner {
+    private final Window window;
+    private final Scanner scanner;
+
+    StreamingScanner (Reader reader, ErrorReporter errors) {
+        this.window = new Window(reader);
+        this.scanner = new Scanner(window, errors);
+    }
+
+    /**
+     * Scans the next token, returning the {@link TokenType#EOF} token again and again at the end of the input.
+     */
+    Token next () {
+        Token token = scanner.next();
+        window.release(scanner.position());
+        return token;
+    }
+
+    /**
+     * The characters of the input read so far and not released yet. Its length is unknown until the input ends, and
+     * {@link Integer#MAX_VALUE} until then: the scanner checks it before reading any character, at most two past the
+     * last one it read, so that many are always read ahead to tell whether the input ends there.
+     */
+    private static final class Window implements CharSequence {
+        // The most characters the scanner looks at past the last one it read.
+        private static final int LOOKAHEAD = 2;
+
+        private final Reader reader;
+        private char[] buffer = new char[8192];
+        // Buffered characters are at [offset, offset + size) in the input, the ones before 'released' can be dropped.
+        private int offset = 0;
+        private int size = 0;
+        private int released = 0;
+        private boolean endOfInput = false;
+
+        Window (Reader reader) {
+            this.reader = reader;
+            fill(LOOKAHEAD);
+        }
+
+        void release (int position) {
+            released = position;
+        }
+
+        @Override
+        public int length () {
+            return endOfInput ? offset + size : Integer.MAX_VALUE;
+        }
+
+        @Override
+        public char charAt (int index) {
+            if (index + 1 + LOOKAHEAD > offset + size) {
+                fill(index + 1 + LOOKAHEAD);
+                if (index >= offset + size) throw new IndexOutOfBoundsException(index);
+            }
+            return buffer[index - offset];
+        }
+
+        @Override
+        public CharSequence subSequence (int start, int end) {
+            return new String(buffer, start - offset, end - start);
+        }
+
+        @Override
+        public String toString () {
+            return new String(buffer, 0, size);
+        }
+
+        /**
+         * Makes sure that the characters before {@code end} are buffered, reading more input if needed.
+         *
+         * @return false if the input ends before.
+         */
+        private boolean fill (int end) {
+            while (end > offset + size) {
+                if (endOfInput) return false;
+                if (released > offset) {
+                    // Drop the characters of the tokens already returned.
+                    System.arraycopy(buffer, released - offset, buffer, 0, offset + size - released);
+                    size -= released - offset;
+                    offset = released;
+                }
+                if (size == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                try {
+                    int read = reader.read(buffer, size, buffer.length - size);
+                    if (read < 0) {
+                        endOfInput = true;
+                    } else {
+                        size += read;
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return true;
+        }
+    }
+}
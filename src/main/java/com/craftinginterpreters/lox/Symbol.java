@@ -0,0 +1,138 @@
+package com.craftinginterpreters.lox;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+/**
+ * An interned identifier. There is a single symbol per name in the process, so symbols compare by identity and hash
+ * with a precomputed value, and all the tokens naming the same variable share one copy of its name. The scanners
+ * intern identifiers straight from their source, without extracting the lexeme of names seen before.
+ * <p>
+ * The table only holds symbols weakly: once no token, environment nor compiled program refers to a name, its symbol
+ * is collected and its slot reclaimed, so a long-running process does not keep every name it has ever scanned.
+ */
+final class Symbol {
+    private static final int MIN_CAPACITY = 1024;
+
+    final String name;
+    private final int hash;
+
+    // Open addressing table with a power of two length, at most half full counting the entries whose symbol was
+    // collected. Lookups do not lock: they either find the symbol, or retry under the lock, which is also held to
+    // insert symbols and to replace the table when it fills up or when most of its entries are dead.
+    private static volatile Entry[] table = new Entry[MIN_CAPACITY];
+    private static int count = 0;
+    private static int dead = 0;
+    private static final ReferenceQueue<Symbol> collected = new ReferenceQueue<>();
+
+    private Symbol (String name, int hash) {
+        this.name = name;
+        this.hash = hash;
+    }
+
+    static Symbol intern (String name) {
+        return intern(name, 0, name.length());
+    }
+
+    static Symbol intern (CharSequence chars, int start, int end) {
+        int hash = hash(chars, start, end);
+        Symbol symbol = find(table, hash, chars, start, end);
+        if (symbol != null) return symbol;
+
+        synchronized (Symbol.class) {
+            Entry[] entries = table;
+            symbol = find(entries, hash, chars, start, end);
+            if (symbol != null) return symbol;
+
+            symbol = new Symbol(chars.subSequence(start, end).toString(), hash);
+            while (collected.poll() != null) {
+                dead++;
+            }
+            if (++count * 2 > entries.length || dead * 2 > count) {
+                entries = rebuild(entries);
+            }
+            insert(entries, new Entry(symbol));
+            table = entries;
+            return symbol;
+        }
+    }
+
+    @Override
+    public int hashCode () {
+        return hash;
+    }
+
+    @Override
+    public String toString () {
+        return name;
+    }
+
+    private static Symbol find (Entry[] entries, int hash, CharSequence chars, int start, int end) {
+        int mask = entries.length - 1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            Entry entry = entries[i];
+            if (entry == null) return null;
+            // Entries whose symbol was collected stay in place, so that the probe goes on past them.
+            if (entry.hash == hash) {
+                Symbol symbol = entry.get();
+                if (symbol != null && symbol.matches(chars, start, end)) return symbol;
+            }
+        }
+    }
+
+    private static void insert (Entry[] entries, Entry entry) {
+        int mask = entries.length - 1;
+        int i = entry.hash & mask;
+        while (entries[i] != null) {
+            i = (i + 1) & mask;
+        }
+        entries[i] = entry;
+    }
+
+    /**
+     * Copies the entries whose symbol is still alive, plus the one about to be inserted, into a table at most a
+     * quarter full, which grows or shrinks it depending on how many symbols were collected.
+     */
+    private static Entry[] rebuild (Entry[] entries) {
+        count = 1;
+        dead = 0;
+        for (Entry entry : entries) {
+            if (entry != null && !entry.refersTo(null)) count++;
+        }
+        int capacity = MIN_CAPACITY;
+        while (capacity < count * 4) {
+            capacity *= 2;
+        }
+        Entry[] rebuilt = new Entry[capacity];
+        for (Entry entry : entries) {
+            if (entry != null && !entry.refersTo(null)) insert(rebuilt, entry);
+        }
+        return rebuilt;
+    }
+
+    private boolean matches (CharSequence chars, int start, int end) {
+        if (name.length() != end - start) return false;
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != chars.charAt(start + i)) return false;
+        }
+        return true;
+    }
+
+    private static final class Entry extends WeakReference<Symbol> {
+        final int hash;
+
+        Entry (Symbol symbol) {
+            super(symbol, collected);
+            this.hash = symbol.hash;
+        }
+    }
+
+    // Same as String#hashCode.
+    private static int hash (CharSequence chars, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + chars.charAt(i);
+        }
+        return hash;
+    }
+}
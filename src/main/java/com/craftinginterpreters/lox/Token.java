@@ -10,6 +10,14 @@ public final class Token {
     final Object literal;
     final int line;
 
+    /**
+     * The interned name of an identifier, which scanners store as its literal. The parser also takes other tokens as
+     * variable names, as in {@code var 1 = 2;}: those are named after their lexeme.
+     */
+    Symbol symbol () {
+        return literal instanceof Symbol symbol ? symbol : Symbol.intern(lexeme);
+    }
+
     @Override
     public String toString () {
         return type + " " + lexeme + " " + literal;
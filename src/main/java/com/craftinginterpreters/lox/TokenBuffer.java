@@ -0,0 +1,142 @@
+package com.craftinginterpreters.lox;
+
+import java.util.Arrays;
+
+/**
+ * Compact representation of a scanned program: token types, source offsets, lengths and lines are stored in parallel
+ * primitive arrays instead of one {@link Token} object per token. Lexemes and literals are only extracted from the
+ * source when a token is materialized, i.e. when the parser keeps it in the AST or reports an error at it.
+ */
+final class TokenBuffer {
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private final String source;
+    private byte[] types;
+    private int[] starts;
+    private int[] lengths;
+    private int[] lines;
+    private int size = 0;
+
+    TokenBuffer (String source) {
+        // Source code averages several characters per token.
+        this(source, Math.max(16, source.length() / 4));
+    }
+
+    TokenBuffer (String source, int capacity) {
+        this.source = source;
+        this.types = new byte[capacity];
+        this.starts = new int[capacity];
+        this.lengths = new int[capacity];
+        this.lines = new int[capacity];
+    }
+
+    void add (TokenType type, int start, int length, int line) {
+        if (size == types.length) grow(size + 1);
+        types[size] = (byte) type.ordinal();
+        starts[size] = start;
+        lengths[size] = length;
+        lines[size] = line;
+        size++;
+    }
+
+    /**
+     * Appends the tokens of another buffer over the same source, shifting their lines.
+     */
+    void addAll (TokenBuffer other, int lineDelta) {
+        if (size + other.size > types.length) grow(size + other.size);
+        System.arraycopy(other.types, 0, types, size, other.size);
+        System.arraycopy(other.starts, 0, starts, size, other.size);
+        System.arraycopy(other.lengths, 0, lengths, size, other.size);
+        for (int i = 0; i < other.size; i++) {
+            lines[size + i] = other.lines[i] + lineDelta;
+        }
+        size += other.size;
+    }
+
+    private void grow (int minCapacity) {
+        int capacity = Math.max(minCapacity, types.length * 2);
+        types = Arrays.copyOf(types, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        lines = Arrays.copyOf(lines, capacity);
+    }
+
+    int size () {
+        return size;
+    }
+
+    TokenType type (int index) {
+        return TYPES[types[index]];
+    }
+
+    int line (int index) {
+        return lines[index];
+    }
+
+    String lexeme (int index) {
+        return Scanner.lexeme(source, type(index), starts[index], starts[index] + lengths[index]);
+    }
+
+    Token token (int index) {
+        int start = starts[index];
+        return Scanner.token(source, type(index), start, start + lengths[index], lines[index]);
+    }
+
+    /**
+     * A cursor for the {@link Parser}, which only materializes the tokens it asks for.
+     */
+    TokenSource cursor () {
+        return cursor(0, size - 1);
+    }
+
+    /**
+     * A cursor over the tokens in {@code [from, end)}, followed by an {@link TokenType#EOF} token on the line of the
+     * token at {@code end}.
+     */
+    TokenSource cursor (int from, int end) {
+        return new TokenSource() {
+            private int current = from;
+            // The last token materialized and its index, as the parser often asks for the same token twice.
+            private int cachedIndex = -1;
+            private Token cached = null;
+
+            @Override
+            public TokenType peekType () {
+                return current == end ? TokenType.EOF : type(current);
+            }
+
+            @Override
+            public Token peek () {
+                return materialize(current);
+            }
+
+            @Override
+            public int peekLine () {
+                return lines[current];
+            }
+
+            @Override
+            public TokenType previousType () {
+                return type(current - 1);
+            }
+
+            @Override
+            public Token previous () {
+                return materialize(current - 1);
+            }
+
+            private Token materialize (int index) {
+                if (index != cachedIndex) {
+                    cached = index == end ? new Token(TokenType.EOF, "", null, lines[end]) : token(index);
+                    cachedIndex = index;
+                }
+                return cached;
+            }
+
+            @Override
+            public void advance () {
+                if (current != end) current++;
+            }
+        };
+    }
+}
@@ -0,0 +1,101 @@
+package com.craftinginterpreters.lox;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * A cursor over the tokens consumed by the {@link Parser}, ending with an {@link TokenType#EOF} token past which it
+ * does not advance. Implementations may create {@link Token} objects lazily: the parser only asks for the tokens it
+ * keeps or reports errors at, and checks the type and line of the others.
+ */
+interface TokenSource {
+    TokenType peekType ();
+
+    Token peek ();
+
+    int peekLine ();
+
+    TokenType previousType ();
+
+    Token previous ();
+
+    void advance ();
+
+    static TokenSource of (List<Token> tokens) {
+        return new TokenSource() {
+            private int current = 0;
+
+            @Override
+            public TokenType peekType () {
+                return tokens.get(current).type;
+            }
+
+            @Override
+            public Token peek () {
+                return tokens.get(current);
+            }
+
+            @Override
+            public int peekLine () {
+                return tokens.get(current).line;
+            }
+
+            @Override
+            public TokenType previousType () {
+                return tokens.get(current - 1).type;
+            }
+
+            @Override
+            public Token previous () {
+                return tokens.get(current - 1);
+            }
+
+            @Override
+            public void advance () {
+                if (peekType() != TokenType.EOF) current++;
+            }
+        };
+    }
+
+    /**
+     * A source pulling tokens one at a time, e.g. from a {@link StreamingScanner}.
+     */
+    static TokenSource of (Supplier<Token> tokens) {
+        return new TokenSource() {
+            private Token current = tokens.get();
+            private Token previous = null;
+
+            @Override
+            public TokenType peekType () {
+                return current.type;
+            }
+
+            @Override
+            public Token peek () {
+                return current;
+            }
+
+            @Override
+            public int peekLine () {
+                return current.line;
+            }
+
+            @Override
+            public TokenType previousType () {
+                return previous.type;
+            }
+
+            @Override
+            public Token previous () {
+                return previous;
+            }
+
+            @Override
+            public void advance () {
+                if (current.type == TokenType.EOF) return;
+                previous = current;
+                current = tokens.get();
+            }
+        };
+    }
+}
@@ -0,0 +1,125 @@
+package com.craftinginterpreters.lox;
+
+import static com.craftinginterpreters.lox.LoxString.*;
+
+/**
+ * Semantics of Lox values shared by all execution engines, so that they agree on truthiness, equality, string
+ * conversion and the runtime errors raised by operators.
+ */
+final class Values {
+    private Values () {}
+
+    static Object binary (Token operator, Object left, Object right) {
+        return switch (operator.type) {
+            case GREATER -> {
+                checkNumberOperands(operator, left, right);
+                yield (double) left > (double) right;
+            }
+            case GREATER_EQUAL -> {
+                checkNumberOperands(operator, left, right);
+                yield (double) left >= (double) right;
+            }
+            case LESS -> {
+                checkNumberOperands(operator, left, right);
+                yield (double) left < (double) right;
+            }
+            case LESS_EQUAL -> {
+                checkNumberOperands(operator, left, right);
+                yield (double) left <= (double) right;
+            }
+            case MINUS -> {
+                checkNumberOperands(operator, left, right);
+                yield (double) left - (double) right;
+            }
+            case STAR -> {
+                checkNumberOperands(operator, left, right);
+                yield (double) left * (double) right;
+            }
+            case SLASH -> {
+                checkNumberOperands(operator, left, right);
+                checkNonzeroDenominator(operator, (double) right);
+                yield (double) left / (double) right;
+            }
+            case PLUS -> add(operator, left, right);
+            case EQUAL -> isEqual(left, right);
+            case BANG_EQUAL -> !isEqual(left, right);
+            default -> null; // unreachable
+        };
+    }
+
+    static Object unary (Token operator, Object right) {
+        return switch (operator.type) {
+            case MINUS -> {
+                checkNumberOperand(operator, right);
+                yield -(double) right;
+            }
+            case BANG -> !isTruthy(right);
+            default -> null; // unreachable
+        };
+    }
+
+    static Object add (Token operator, Object left, Object right) {
+        // At least one of the operands is a string: either string concatenation, or stringify the non-string
+        // operand and concatenate it with the string operand
+        if (isString(left) || isString(right)) {
+            return concat(text(left), text(right));
+        }
+        if (left instanceof Double leftDouble && right instanceof Double rightDouble) {
+            return leftDouble + rightDouble;
+        }
+        throw new RuntimeError(operator, "Operands must be two numbers or two strings.");
+    }
+
+    // Ropes are concatenated without being flattened.
+    private static CharSequence text (Object object) {
+        return object instanceof LoxString rope ? rope : stringify(object);
+    }
+
+    static String stringify (Object object) {
+        if (object == null) return "nil";
+        if (object instanceof Double number) return Numbers.format(number);
+        return object.toString();
+    }
+
+    /**
+     * Prints a value, numbers being formatted straight into the output.
+     */
+    static void print (OutputSink out, Object value) {
+        if (value instanceof Double number) {
+            out.println((double) number);
+        } else {
+            out.println(stringify(value));
+        }
+    }
+
+    static boolean isEqual (Object left, Object right) {
+        // Basically same as Java but make sure to avoid NPE when calling Object#equals on left.
+        if (left == null && right == null) return true;
+        if (left == null) return false;
+        // Strings are equal by contents, whether they were concatenated or not.
+        if (left instanceof LoxString) left = left.toString();
+        if (right instanceof LoxString) right = right.toString();
+        return left.equals(right);
+    }
+
+    static boolean isTruthy (Object object) {
+        if (object == null) return false;
+        if (object instanceof Boolean booleanObject) return booleanObject;
+        return true;
+    }
+
+    static void checkNumberOperands (Token operator, Object left, Object right) {
+        if (left instanceof Double && right instanceof Double) return;
+        throw new RuntimeError(operator, "Operands must be numbers.");
+    }
+
+    static void checkNumberOperand (Token operator, Object operand) {
+        if (operand instanceof Double) return;
+        throw new RuntimeError(operator, "Operand must be a number.");
+    }
+
+    static void checkNonzeroDenominator (Token operator, double denominator) {
+        if (denominator != 0) return;
+        throw new RuntimeError(operator, "Denominator must be non-zero.");
+    }
+}
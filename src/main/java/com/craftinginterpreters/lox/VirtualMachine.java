@@ -0,0 +1,188 @@
+package com.craftinginterpreters.lox;
+
+import java.util.List;
+
+import static com.craftinginterpreters.lox.OpCode.*;
+import static com.craftinginterpreters.lox.Values.*;
+
+/**
+ * Stack-based virtual machine executing the bytecode produced by {@link BytecodeCompiler}. It behaves exactly like
+ * the tree-walking {@link Interpreter}: both share the value semantics of {@link Values}, and runtime errors carry
+ * the line of the failing operator or variable.
+ */
+public final class VirtualMachine implements Engine {
+    private final OutputSink out;
+    private final ErrorReporter errors;
+    private final Environment globals = new Environment();
+
+    public VirtualMachine () {
+        this(OutputSink.of(System.out), new ErrorReporter(System.err));
+    }
+
+    public VirtualMachine (OutputSink out, ErrorReporter errors) {
+        this.out = out;
+        this.errors = errors;
+    }
+
+    @Override
+    public void interpret (List<Stmt> statements) {
+        BytecodeCompiler compiler = new BytecodeCompiler(errors);
+        Chunk chunk = compiler.compile(statements);
+        if (compiler.hadError) return;
+
+        try {
+            run(chunk);
+        } catch (RuntimeError error) {
+            errors.runtimeError(error);
+        }
+    }
+
+    private void run (Chunk chunk) {
+        byte[] code = chunk.code();
+        Object[] constants = chunk.constants();
+        Object[] stack = new Object[chunk.maxStack];
+        int top = 0; // First free stack slot.
+        int ip = 0;
+
+        for (;;) {
+            byte instruction = code[ip++];
+            switch (instruction) {
+                case CONSTANT -> {
+                    stack[top++] = constants[readShort(code, ip)];
+                    ip += 2;
+                }
+                case NIL -> stack[top++] = null;
+                case TRUE -> stack[top++] = true;
+                case FALSE -> stack[top++] = false;
+                case POP -> stack[--top] = null;
+                case RESERVE -> {
+                    // Slots above the top are always cleared, so the reserved locals already hold nil.
+                    top += readShort(code, ip);
+                    ip += 2;
+                }
+                case POP_N -> {
+                    int count = readShort(code, ip);
+                    ip += 2;
+                    for (int i = 0; i < count; i++) {
+                        stack[--top] = null;
+                    }
+                }
+                case GET_LOCAL -> {
+                    stack[top++] = stack[readShort(code, ip)];
+                    ip += 2;
+                }
+                case SET_LOCAL -> {
+                    stack[readShort(code, ip)] = stack[top - 1];
+                    ip += 2;
+                }
+                case GET_GLOBAL -> {
+                    Token name = (Token) constants[readShort(code, ip)];
+                    ip += 2;
+                    try {
+                        stack[top++] = globals.get(name);
+                    } catch (RuntimeError error) {
+                        throw atLine(error, chunk, ip);
+                    }
+                }
+                case SET_GLOBAL -> {
+                    Token name = (Token) constants[readShort(code, ip)];
+                    ip += 2;
+                    try {
+                        globals.assign(name, stack[top - 1]);
+                    } catch (RuntimeError error) {
+                        throw atLine(error, chunk, ip);
+                    }
+                }
+                case DEFINE_GLOBAL -> {
+                    Token name = (Token) constants[readShort(code, ip)];
+                    ip += 2;
+                    globals.define(name.symbol(), stack[--top]);
+                    stack[top] = null;
+                }
+                case ADD -> {
+                    Object right = stack[--top];
+                    Object left = stack[top - 1];
+                    stack[top] = null;
+                    if (left instanceof Double leftDouble && right instanceof Double rightDouble) {
+                        stack[top - 1] = leftDouble + rightDouble;
+                    } else {
+                        stack[top - 1] = add(operator(chunk, ip, TokenType.PLUS), left, right);
+                    }
+                }
+                case SUBTRACT, MULTIPLY, DIVIDE, GREATER, GREATER_EQUAL, LESS, LESS_EQUAL -> {
+                    Object right = stack[--top];
+                    Object left = stack[top - 1];
+                    stack[top] = null;
+                    if (!(left instanceof Double leftDouble) || !(right instanceof Double rightDouble)) {
+                        throw new RuntimeError(operator(chunk, ip, null), "Operands must be numbers.");
+                    }
+                    double a = leftDouble;
+                    double b = rightDouble;
+                    stack[top - 1] = switch (instruction) {
+                        case SUBTRACT -> a - b;
+                        case MULTIPLY -> a * b;
+                        case DIVIDE -> {
+                            if (b == 0) {
+                                Token operator = operator(chunk, ip, TokenType.SLASH);
+                                throw new RuntimeError(operator, "Denominator must be non-zero.");
+                            }
+                            yield a / b;
+                        }
+                        case GREATER -> a > b;
+                        case GREATER_EQUAL -> a >= b;
+                        case LESS -> a < b;
+                        default -> a <= b;
+                    };
+                }
+                case NOT_EQUAL -> {
+                    Object right = stack[--top];
+                    stack[top] = null;
+                    stack[top - 1] = !isEqual(stack[top - 1], right);
+                }
+                case BINARY -> {
+                    Token operator = (Token) constants[readShort(code, ip)];
+                    ip += 2;
+                    Object right = stack[--top];
+                    stack[top] = null;
+                    stack[top - 1] = binary(operator, stack[top - 1], right);
+                }
+                case NEGATE -> {
+                    Object right = stack[top - 1];
+                    if (!(right instanceof Double rightDouble)) {
+                        throw new RuntimeError(operator(chunk, ip, TokenType.MINUS), "Operand must be a number.");
+                    }
+                    stack[top - 1] = -rightDouble;
+                }
+                case NOT -> stack[top - 1] = !isTruthy(stack[top - 1]);
+                case PRINT -> {
+                    print(out, stack[--top]);
+                    stack[top] = null;
+                }
+                case RETURN -> {
+                    return;
+                }
+                default -> throw new IllegalStateException("Unknown opcode " + instruction);
+            }
+        }
+    }
+
+    private static int readShort (byte[] code, int offset) {
+        return ((code[offset] & 0xFF) << 8) | (code[offset + 1] & 0xFF);
+    }
+
+    /**
+     * Global names share a single token per lexeme in the constant pool: report errors at the line of the failing
+     * instruction instead.
+     */
+    private static RuntimeError atLine (RuntimeError error, Chunk chunk, int ip) {
+        Token token = new Token(error.token.type, error.token.lexeme, error.token.literal, chunk.lineAt(ip - 1));
+        return new RuntimeError(token, error.getMessage());
+    }
+
+    /**
+     * Builds a token standing for the operator of the instruction preceding {@code ip}, for error reporting only.
+     */
+    private static Token operator (Chunk chunk, int ip, TokenType type) {
+        return new Token(type, "", null, chunk.lineAt(ip - 1));
+    }
+}
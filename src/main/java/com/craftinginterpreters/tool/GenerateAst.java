@@ -18,18 +18,18 @@ public class GenerateAst {
         }
         String outputDir = args[0];
         defineAst(outputDir, "Expr", List.of(
-            "Assign   : Token name, Expr value",
+            "Assign   : Token name, Expr value : int depth = -1, int slot = -1",
             "Binary   : Expr left, Token operator, Expr right",
             "Grouping : Expr expression",
-            "Literal  : Object value",
+            "Literal  : Object value, int line",
             "Unary    : Token operator, Expr right",
-            "Variable : Token name"
+            "Variable : Token name : int depth = -1, int slot = -1"
         ));
         defineAst(outputDir, "Stmt", List.of(
-            "Block      : List<Stmt> statements",
+            "Block      : List<Stmt> statements : int slots = 0",
             "Expression : Expr expression",
-            "Print      : Expr expression",
-            "Var        : Token name, Expr initializer"
+            "Print      : Expr expression, int line",
+            "Var        : Token name, Expr initializer : int slot = -1"
         ));
     }
 
@@ -47,9 +47,12 @@ public class GenerateAst {
 
         // The AST classes
         for (String type: types) {
-            String className = type.split(":")[0].trim();
-            String fields = type.split(":")[1].trim();
-            defineType(writer, baseName, className, fields);
+            String[] parts = type.split(":");
+            String className = parts[0].trim();
+            String fields = parts[1].trim();
+            // Optional third part: mutable fields filled in by later passes (e.g. the resolver).
+            String resolvedFields = parts.length > 2 ? parts[2].trim() : null;
+            defineType(writer, baseName, className, fields, resolvedFields);
         }
 
         // The base accept() method
@@ -72,7 +75,13 @@ public class GenerateAst {
         writer.println();
     }
 
-    private static void defineType(PrintWriter writer, String baseName, String className, String fieldList) {
+    private static void defineType(
+        PrintWriter writer,
+        String baseName,
+        String className,
+        String fieldList,
+        String resolvedFieldList
+    ) {
         writer.println("\tstatic class " + className + " extends " + baseName + " {");
 
         // Constructor
@@ -98,6 +107,11 @@ public class GenerateAst {
         for (String field: fields) {
             writer.println("\t\tfinal " + field + ";");
         }
+        if (resolvedFieldList != null) {
+            for (String field: resolvedFieldList.split(", ")) {
+                writer.println("\t\t" + field + ";");
+            }
+        }
 
         writer.println("\t}");
     }
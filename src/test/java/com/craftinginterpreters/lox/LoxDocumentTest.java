@@ -0,0 +1,109 @@
+package com.craftinginterpreters.lox;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A document edited at random places must hold the same statements, with the same tokens and lines, and report the same
+ * diagnostics in the same order, as a full scan and parse of its text.
+ */
+class LoxDocumentTest {
+    // Fragments of Lox including unbalanced strings and comments, which make edits spill over the following segments.
+    private static final String[] PIECES = {
+        "print ", "var ", "x", "y", " = ", "1", "2.5", "\"s\"", "\"", "/*", "*/", "//", "\n", " ", ";", "{", "}", "(",
+        ")", "+", "-", "*", "/", "!", "==", "!=", "<", ">=", "nil", "true", "@", "and",
+    };
+    // Whole lines of valid Lox, some of which span several lines.
+    private static final String[] LINES = {
+        "print x;\n", "var y = 2;\n", "{ var z = 3; print z + y; }\n", "print \"a\" + 1;\n", "\n", "// y\n",
+        "/* a\n * b */\n", "print \"two\nlines\";\n", "{\n  var w = -1;\n  print !w;\n}\n", "x = y = (1 + 2) * 3;\n",
+    };
+
+    @Test
+    void matchesFullParseAfterRandomEdits () throws IOException {
+        Random random = new Random(17);
+        int parsedWithoutErrors = 0;
+        for (int document = 0; document < 500; document++) {
+            String text = lines(random, random.nextInt(20));
+            LoxDocument incremental = new LoxDocument(text);
+
+            for (int edit = 0; edit < 20; edit++) {
+                int offset;
+                int length;
+                String replacement;
+                if (random.nextInt(4) == 0) {
+                    // Anywhere, with fragments likely to introduce errors.
+                    offset = random.nextInt(text.length() + 1);
+                    length = random.nextInt(Math.min(6, text.length() - offset) + 1);
+                    StringBuilder fragments = new StringBuilder();
+                    for (int i = random.nextInt(3); i > 0; i--) {
+                        fragments.append(PIECES[random.nextInt(PIECES.length)]);
+                    }
+                    replacement = fragments.toString();
+                } else {
+                    // Whole lines, which keep a valid document valid.
+                    offset = lineStart(text, random.nextInt(text.length() + 1));
+                    int end = offset;
+                    for (int i = random.nextInt(3); i > 0 && end < text.length(); i--) {
+                        int newline = text.indexOf('\n', end);
+                        end = newline < 0 ? text.length() : newline + 1;
+                    }
+                    length = end - offset;
+                    replacement = lines(random, random.nextInt(3));
+                }
+                incremental.edit(offset, length, replacement);
+                text = text.substring(0, offset) + replacement + text.substring(offset + length);
+
+                String context = "Document " + document + " after edit " + edit + ":\n" + text;
+                assertEquals(text, incremental.text(), context);
+                ErrorReporter errors = new ErrorReporter(new PrintStream(new ByteArrayOutputStream()));
+                List<Stmt> statements = new Parser(TokenSource.of(new Scanner(text, errors).scanTokens()), errors)
+                    .parse();
+                assertEquals(errors.diagnostics(), incremental.diagnostics(), context);
+                // The document leaves out the declarations with errors, which a full parse may keep in part: with
+                // errors, compare with a document made from scratch instead.
+                if (errors.diagnostics().isEmpty()) {
+                    assertTrue(Arrays.equals(serialize(statements), serialize(incremental.statements())), context);
+                    parsedWithoutErrors++;
+                } else {
+                    byte[] expected = serialize(new LoxDocument(text).statements());
+                    assertTrue(Arrays.equals(expected, serialize(incremental.statements())), context);
+                }
+            }
+        }
+        assertTrue(parsedWithoutErrors > 1000, "Too few edits left the document without errors.");
+    }
+
+    private static String lines (Random random, int count) {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            lines.append(LINES[random.nextInt(LINES.length)]);
+        }
+        return lines.toString();
+    }
+
+    private static int lineStart (String text, int offset) {
+        return offset == 0 ? 0 : text.lastIndexOf('\n', offset - 1) + 1;
+    }
+
+    /**
+     * The statements in the format of the program cache, which holds every token and line the AST keeps.
+     */
+    private static byte[] serialize (List<Stmt> statements) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            new AstWriter(output).write(statements);
+        }
+        return bytes.toByteArray();
+    }
+}
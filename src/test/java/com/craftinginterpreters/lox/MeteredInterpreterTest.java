@@ -0,0 +1,53 @@
+package com.craftinginterpreters.lox;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static com.craftinginterpreters.shared.ErrorCode.EX_SOFTWARE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * A script needs exactly one unit of fuel per statement and expression, whichever way the interpreter evaluates them.
+ */
+class MeteredInterpreterTest {
+    @Test
+    void chargesArithmeticOnce () {
+        // Print, binary and two literals.
+        assertFuel(4, "print 1 + 2;");
+    }
+
+    @Test
+    void chargesVariablesOnce () {
+        // Var and literal, then print, binary and two variables.
+        assertFuel(6, "var a = 1; print a + a;");
+    }
+
+    @Test
+    void chargesEveryKindOfNodeOnce () {
+        // 8 nodes on the first line, 3 on the second, 4 on the third and 7 in the block.
+        assertFuel(22, """
+            print -(1 + 2) * 3;
+            print !true;
+            print "a" + "b";
+            { var b = 2; print b > 1; }
+            """);
+    }
+
+    /**
+     * Checks that the script runs with the given fuel, but not with one unit less.
+     */
+    private static void assertFuel (long fuel, String source) {
+        assertEquals(0, run(fuel, source), "Exit code with " + fuel + " units of fuel");
+        assertEquals(EX_SOFTWARE, run(fuel - 1, source), "Exit code with " + (fuel - 1) + " units of fuel");
+    }
+
+    private static int run (long fuel, String source) {
+        LoxContext context = new LoxContext(OutputSink.memory(), new PrintStream(new ByteArrayOutputStream(), true,
+            StandardCharsets.UTF_8));
+        context.budget(new Budget().fuel(fuel)).run(source);
+        return context.exitCode();
+    }
+}
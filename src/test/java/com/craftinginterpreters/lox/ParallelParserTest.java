@@ -0,0 +1,114 @@
+package com.craftinginterpreters.lox;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Parsing a program in chunks must yield the same statements and errors as parsing it sequentially, wherever the chunk
+ * boundaries fall and whether or not the program has syntax errors.
+ */
+class ParallelParserTest {
+    // Fragments of declarations breaking the program, including braces and parentheses that move the chunk boundaries.
+    private static final String[] ERRORS = {"}", "{", "(", ")", "print", "1 = 2;", "var;", "+", "@"};
+
+    @Test
+    void matchesSequentialParse () throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Random random = new Random(23);
+            for (int round = 0; round < 2000; round++) {
+                StringBuilder source = new StringBuilder();
+                for (int i = random.nextInt(60); i > 0; i--) {
+                    declaration(random, source, 0);
+                }
+                if (random.nextInt(3) == 0) {
+                    source.insert(random.nextInt(source.length() + 1), ERRORS[random.nextInt(ERRORS.length)]);
+                }
+                assertSameStatements(source.toString(), pool, 1 + random.nextInt(32), round);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void assertSameStatements (String source, ForkJoinPool pool, int minChunkTokens, int round)
+            throws IOException {
+        ErrorReporter scanErrors = silent();
+        TokenBuffer tokens = new Scanner(source, scanErrors).scanTokenBuffer();
+        ErrorReporter sequentialErrors = silent();
+        List<Stmt> sequential = new Parser(tokens.cursor(), sequentialErrors).parse();
+        ErrorReporter parallelErrors = silent();
+        List<Stmt> parallel = new ParallelParser(tokens, parallelErrors, pool, minChunkTokens).parse();
+
+        String context = "Round " + round + " in chunks of " + minChunkTokens + " tokens:\n" + source;
+        assertEquals(sequentialErrors.diagnostics(), parallelErrors.diagnostics(), context);
+        assertEquals(describe(sequential), describe(parallel), context);
+    }
+
+    private static void declaration (Random random, StringBuilder source, int depth) {
+        switch (random.nextInt(depth < 4 ? 5 : 4)) {
+            case 0 -> source.append("var v").append(random.nextInt(4)).append(" = ").append(expression(random, 0));
+            case 1 -> source.append("print ").append(expression(random, 0));
+            case 2 -> source.append("v").append(random.nextInt(4)).append(" = ").append(expression(random, 0));
+            case 3 -> source.append(expression(random, 0));
+            default -> {
+                source.append("{\n");
+                for (int i = random.nextInt(4); i > 0; i--) {
+                    declaration(random, source, depth + 1);
+                }
+                source.append("}\n");
+                return;
+            }
+        }
+        source.append(";\n");
+    }
+
+    private static String expression (Random random, int depth) {
+        return switch (random.nextInt(depth < 3 ? 6 : 3)) {
+            case 0 -> Integer.toString(random.nextInt(10));
+            case 1 -> "\"s" + random.nextInt(10) + "\"";
+            case 2 -> "v" + random.nextInt(4);
+            case 3 -> "(" + expression(random, depth + 1) + ")";
+            case 4 -> "-" + expression(random, depth + 1);
+            default -> expression(random, depth + 1) + " " + "+-*/<=".charAt(random.nextInt(6)) + " "
+                + expression(random, depth + 1);
+        };
+    }
+
+    /**
+     * The statements in the format of the program cache, which holds every token and line the AST keeps. Statements
+     * left null by syntax errors, possibly in blocks, which the cache does not support, are written as such.
+     */
+    private static String describe (List<Stmt> statements) throws IOException {
+        StringBuilder description = new StringBuilder("[");
+        for (Stmt statement : statements) {
+            if (statement == null) {
+                description.append("null");
+            } else if (statement instanceof Stmt.Block block) {
+                description.append(describe(block.statements));
+            } else {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (DataOutputStream output = new DataOutputStream(bytes)) {
+                    new AstWriter(output).write(List.of(statement));
+                }
+                description.append(Base64.getEncoder().encodeToString(bytes.toByteArray()));
+            }
+            description.append(' ');
+        }
+        return description.append(']').toString();
+    }
+
+    private static ErrorReporter silent () {
+        return new ErrorReporter(new PrintStream(new ByteArrayOutputStream()));
+    }
+}
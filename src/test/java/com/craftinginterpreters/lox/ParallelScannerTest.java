@@ -0,0 +1,67 @@
+package com.craftinginterpreters.lox;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Scanning a source in chunks must yield the same tokens and errors as scanning it sequentially, wherever the chunk
+ * boundaries fall: in particular inside strings and block comments spanning several lines.
+ */
+class ParallelScannerTest {
+    private static final String[] PIECES = {
+        "var", " ", "x", "y1", "_z", "12", "3.5", "+", "-", "*", "/", "=", "==", "!=", "<=", ">", "!", ";", "(", ")",
+        "{", "}", "\n", "\n", "\n", "\"a string\"", "\"two\nlines\"", "\"three\n\nlines\"", "\"/* not a comment\"",
+        "// a comment\n", "// \"not a string\n", "/* a comment */", "/* two\nlines */", "/* \"not\na string\" */",
+        "/*\n\n*/", "@", "#",
+    };
+
+    @Test
+    void matchesSequentialScan () {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Random random = new Random(19);
+            for (int round = 0; round < 2000; round++) {
+                StringBuilder source = new StringBuilder();
+                for (int i = random.nextInt(400); i > 0; i--) {
+                    source.append(PIECES[random.nextInt(PIECES.length)]);
+                }
+                // Sometimes a string or a comment left open, running into every following chunk.
+                switch (random.nextInt(8)) {
+                    case 0 -> source.insert(random.nextInt(source.length() + 1), '"');
+                    case 1 -> source.insert(random.nextInt(source.length() + 1), "/*");
+                    default -> {}
+                }
+                assertSameTokens(source.toString(), pool, 1 + random.nextInt(64), round);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void assertSameTokens (String source, ForkJoinPool pool, int minChunkLength, int round) {
+        ErrorReporter sequentialErrors = silent();
+        TokenBuffer sequential = new Scanner(source, sequentialErrors).scanTokenBuffer();
+        ErrorReporter parallelErrors = silent();
+        TokenBuffer parallel = new ParallelScanner(source, parallelErrors, pool, minChunkLength).scan();
+
+        String context = "Round " + round + " in chunks of " + minChunkLength + " characters:\n" + source;
+        assertEquals(sequential.size(), parallel.size(), context);
+        for (int i = 0; i < sequential.size(); i++) {
+            String at = context + "\nat token " + i;
+            assertEquals(sequential.type(i), parallel.type(i), at);
+            assertEquals(sequential.line(i), parallel.line(i), at);
+            assertEquals(sequential.lexeme(i), parallel.lexeme(i), at);
+        }
+        assertEquals(sequentialErrors.diagnostics(), parallelErrors.diagnostics(), context);
+    }
+
+    private static ErrorReporter silent () {
+        return new ErrorReporter(new PrintStream(new ByteArrayOutputStream()));
+    }
+}
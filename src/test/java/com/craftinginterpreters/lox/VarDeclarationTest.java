@@ -0,0 +1,38 @@
+package com.craftinginterpreters.lox;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The parser takes any token as the name of a variable, as the original interpreter did: declaring a number or a string
+ * runs, on every engine, instead of failing to intern the name.
+ */
+class VarDeclarationTest {
+    @ParameterizedTest
+    @ValueSource(strings = {"tree", "vm", "nodes", "stack", "arena", "jvm"})
+    void declaresGlobalsNamedByLiterals (String engine) {
+        assertEquals("1\ndone\n", run(engine, "var 1 = 2; var \"s\" = 3; print 1; print \"done\";"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"tree", "vm", "nodes", "stack", "arena", "jvm"})
+    void declaresLocalsNamedByLiterals (String engine) {
+        assertEquals("1\ns\n", run(engine, "{ var 1 = 2; var \"s\" = 3; print 1; print \"s\"; }"));
+    }
+
+    private static String run (String engine, String source) {
+        OutputSink.Memory out = OutputSink.memory();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        LoxContext context = new LoxContext(out, new PrintStream(err, true, StandardCharsets.UTF_8)).engine(engine);
+        context.run(source);
+        assertEquals("", err.toString(StandardCharsets.UTF_8));
+        assertEquals(0, context.exitCode());
+        return out.contents();
+    }
+}